@@ -5,6 +5,7 @@ import com.aliyun.oss.OSSClientBuilder;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 @Configuration
 public class OssConfig {
@@ -18,8 +19,26 @@ public class OssConfig {
     @Value("${aliyun.oss.accessKeySecret}")
     private String accessKeySecret;
 
+    @Value("${aliyun.oss.multipart.threads:8}")
+    private int uploadThreads;
+
     @Bean
     public OSS ossClient() {
         return new OSSClientBuilder().build(endpoint, accessKeyId, accessKeySecret);
     }
+
+    /**
+     * Pool that sends the parts of multipart uploads, shared by all uploads so that the number
+     * of part requests in flight is bounded process-wide
+     */
+    @Bean
+    public ThreadPoolTaskExecutor ossUploadExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(uploadThreads);
+        executor.setMaxPoolSize(uploadThreads);
+        executor.setThreadNamePrefix("oss-upload-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
 } 
\ No newline at end of file
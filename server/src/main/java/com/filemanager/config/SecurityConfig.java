@@ -28,6 +28,9 @@ public class SecurityConfig {
                 .requestMatchers("/auth/**").permitAll()
                 .requestMatchers("/swagger-ui/**", "/api-docs/**").permitAll()
                 .requestMatchers("/public/**").permitAll()
+                .requestMatchers("/actuator/health").permitAll()
+                // Metrics reveal usage of every user, only the scraper account may read them
+                .requestMatchers("/actuator/prometheus").hasRole("METRICS")
                 .anyRequest().authenticated()
             )
             .sessionManagement(session -> session
@@ -0,0 +1,68 @@
+package com.filemanager.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class TranslationExecutorConfig {
+
+    @Value("${translate.jobs.workers:2}")
+    private int workers;
+
+    @Value("${translate.jobs.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${translate.jobs.target-parallelism:4}")
+    private int targetParallelism;
+
+    @Value("${translate.text.pipeline-threads:8}")
+    private int pipelineThreads;
+
+    /**
+     * Bounded pool that runs translation jobs off the request threads. Jobs are handed to it by
+     * TranslationJobScheduler, which only does so when a worker is free.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor translationJobExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("translation-job-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool that translates the target languages of a multi-language job concurrently. Tasks
+     * only come from running jobs, so the queue is bounded by the job pool already.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor translationTargetExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(targetParallelism);
+        executor.setMaxPoolSize(targetParallelism);
+        executor.setThreadNamePrefix("translation-target-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool that translates the groups of a text file ahead of the one being written. Every
+     * target keeps at most translate.text.pipeline-depth groups in it, so the queue is bounded.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor textPipelineExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(pipelineThreads);
+        executor.setMaxPoolSize(pipelineThreads);
+        executor.setThreadNamePrefix("text-pipeline-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,60 @@
+package com.filemanager.config;
+
+import com.deepl.api.Translator;
+import com.deepl.api.TranslatorOptions;
+import com.filemanager.util.TranslationRateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class TranslatorConfig {
+    private static final Logger logger = LoggerFactory.getLogger(TranslatorConfig.class);
+
+    @Value("${translate.authkey}")
+    private String authkey;
+
+    @Value("${translate.max-in-flight:8}")
+    private int maxInFlight;
+
+    @Value("${translate.timeout:30s}")
+    private Duration timeout;
+
+    @Value("${translate.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${translate.rate-limit.characters-per-second:20000}")
+    private double charactersPerSecond;
+
+    @Value("${translate.rate-limit.requests-per-second:10}")
+    private double requestsPerSecond;
+
+    @Bean
+    public Translator translator() {
+        // The DeepL client sits on HttpURLConnection, whose JDK keep-alive cache keeps
+        // http.maxConnections idle sockets per host (5 by default). That is a JVM option, set at
+        // launch; concurrent calls beyond it reconnect instead of reusing a socket.
+        int maxConnections = Integer.getInteger("http.maxConnections", 5);
+        if (maxConnections < maxInFlight) {
+            logger.warn("http.maxConnections is {}, below translate.max-in-flight of {}: start the JVM with -Dhttp.maxConnections={}",
+                maxConnections, maxInFlight, maxInFlight);
+        }
+
+        TranslatorOptions options = new TranslatorOptions()
+                .setTimeout(timeout)
+                .setMaxRetries(maxRetries);
+        return new Translator(authkey, options);
+    }
+
+    /**
+     * Process-wide limiter sized to our DeepL plan, shared by all translation jobs
+     */
+    @Bean
+    public TranslationRateLimiter translationRateLimiter() {
+        return new TranslationRateLimiter(charactersPerSecond, requestsPerSecond);
+    }
+}
@@ -2,22 +2,23 @@ package com.filemanager.controller;
 
 import com.filemanager.model.dto.*;
 import com.filemanager.service.DocumentService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -57,6 +58,36 @@ public class DocumentController {
         }
     }
 
+    @PutMapping("/upload/stream")
+    public ResponseEntity<?> uploadDocumentStream(
+            HttpServletRequest request,
+            @RequestParam("fileName") String fileName,
+            @RequestParam("title") String title,
+            @RequestParam(value = "description", required = false) String description,
+            @RequestParam(value = "tags", required = false) List<String> tags,
+            @RequestParam(value = "companyInfo", required = false) String companyInfo,
+            @RequestParam(value = "brandInfo", required = false) String brandInfo,
+            @RequestParam(value = "productCategory", required = false) String productCategory,
+            @RequestParam(value = "documentType", required = false) String documentType,
+            @RequestParam(value = "language", required = false) String language,
+            @RequestParam(value = "version", required = false) String version) throws IOException {
+        logger.info("Streaming upload of document: {}, declared size: {}", title, request.getContentLengthLong());
+        try {
+            DocumentDTO document = documentService.uploadDocument(request.getInputStream(), request.getContentLengthLong(),
+                fileName, request.getContentType(), title, description, tags,
+                companyInfo, brandInfo, productCategory, documentType, language, version);
+            logger.info("Document uploaded successfully: {}", document.getDocumentId());
+            return ResponseEntity.ok(new ApiResponse<>(
+                200,
+                "上传成功",
+                document
+            ));
+        } catch (Exception e) {
+            logger.error("Failed to upload document: {}", title, e);
+            throw e;
+        }
+    }
+
     @GetMapping
     public ResponseEntity<?> getDocuments(
             @RequestParam(defaultValue = "0") int page,
@@ -191,17 +222,47 @@ public class DocumentController {
         }
     }
 
+    @PostMapping("/bulk-delete")
+    public ResponseEntity<?> deleteDocuments(@RequestBody BulkDeleteRequest request) {
+        logger.info("Bulk deleting {} documents", request.getIds() == null ? 0 : request.getIds().size());
+        try {
+            int deleted = documentService.deleteDocuments(request.getIds());
+            logger.info("{} documents deleted successfully", deleted);
+            return ResponseEntity.ok(new ApiResponse<>(
+                200,
+                "删除成功",
+                deleted
+            ));
+        } catch (Exception e) {
+            logger.error("Failed to bulk delete documents: {}", request.getIds(), e);
+            throw e;
+        }
+    }
+
+    @PutMapping("/{id}/file")
+    public ResponseEntity<?> replaceDocumentFile(
+            @PathVariable Long id,
+            @RequestParam("file") MultipartFile file) {
+        logger.info("Replacing file of document with ID: {}, size: {}", id, file.getSize());
+        try {
+            DocumentDTO document = documentService.replaceDocumentFile(id, file);
+            logger.info("File of document replaced successfully: {}", document.getDocumentId());
+            return ResponseEntity.ok(new ApiResponse<>(
+                200,
+                "更新成功",
+                document
+            ));
+        } catch (Exception e) {
+            logger.error("Failed to replace file of document: {}", id, e);
+            throw e;
+        }
+    }
+
     @GetMapping("/{id}/download")
-    public ResponseEntity<Resource> downloadDocument(@PathVariable Long id) {
-        logger.info("Downloading document with ID: {}", id);
+    public void downloadDocument(@PathVariable Long id, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        logger.info("Downloading document with ID: {}, range: {}", id, request.getHeader(HttpHeaders.RANGE));
         try {
-            Resource resource = documentService.downloadDocument(id);
-            DocumentDTO document = documentService.getDocument(id);
-            
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(document.getFileType()))
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + document.getFileName() + "\"")
-                    .body(resource);
+            documentService.downloadDocument(id, request, response);
         } catch (Exception e) {
             logger.error("Failed to download document: {}", id, e);
             throw e;
@@ -278,16 +339,39 @@ public class DocumentController {
             @RequestBody TranslateRequest request) {
         logger.info("Translating document with ID: {} to language: {}", id, request.getTargetLang());
         try {
-            DocumentDTO translatedDocument = documentService.translateDocument(
+            TranslationJobDTO job = documentService.translateDocument(
                 id,
                 request.getSourceLang(),
                 request.getTargetLang()
             );
-            logger.info("Document translated successfully: {}", translatedDocument.getDocumentId());
-            return ResponseEntity.ok(new ApiResponse<>(
-                200,
-                "翻译成功",
-                translatedDocument
+            logger.info("Translation job {} queued for document: {}", job.getJobId(), job.getDocumentId());
+            return ResponseEntity.accepted().body(new ApiResponse<>(
+                202,
+                "翻译任务已提交",
+                job
+            ));
+        } catch (Exception e) {
+            logger.error("Failed to translate document: {}", id, e);
+            throw e;
+        }
+    }
+
+    @PostMapping("/{id}/translate/batch")
+    public ResponseEntity<?> translateDocumentBatch(
+            @PathVariable Long id,
+            @RequestBody TranslateRequest request) {
+        logger.info("Translating document with ID: {} to languages: {}", id, request.getTargetLangs());
+        try {
+            List<TranslationJobDTO> jobs = documentService.translateDocument(
+                id,
+                request.getSourceLang(),
+                request.getTargetLangs()
+            );
+            logger.info("{} translation jobs queued for document: {}", jobs.size(), id);
+            return ResponseEntity.accepted().body(new ApiResponse<>(
+                202,
+                "翻译任务已提交",
+                jobs
             ));
         } catch (Exception e) {
             logger.error("Failed to translate document: {}", id, e);
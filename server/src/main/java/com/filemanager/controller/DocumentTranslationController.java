@@ -1,9 +1,8 @@
 package com.filemanager.controller;
 
 import com.filemanager.model.TranslationRequest;
-import com.filemanager.model.dto.DocumentDTO;
+import com.filemanager.model.dto.TranslationJobDTO;
 import com.filemanager.service.DocumentService;
-import com.filemanager.service.WordFileService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -12,9 +11,6 @@ import org.springframework.web.bind.annotation.*;
 @RequestMapping("/api/documents")
 public class DocumentTranslationController {
 
-    @Autowired
-    private WordFileService wordFileService;
-    
     @Autowired
     private DocumentService documentService;
 
@@ -23,14 +19,13 @@ public class DocumentTranslationController {
             @PathVariable Long id,
             @RequestBody TranslationRequest request) {
         try {
-            DocumentDTO documentDTO = documentService.getDocument(id);
-            String filePath = documentDTO.getDownloadUrl();
-            String translatedPath = wordFileService.translateWordFile(filePath, 
+            // Translation runs as a background job, poll /translations/jobs/{jobId} for progress
+            TranslationJobDTO job = documentService.translateDocument(id,
                 request.getSourceLang(), 
                 request.getTargetLang());
-            return ResponseEntity.ok().body(translatedPath);
+            return ResponseEntity.accepted().body(job);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("翻译失败：" + e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
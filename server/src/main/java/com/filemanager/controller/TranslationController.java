@@ -0,0 +1,72 @@
+package com.filemanager.controller;
+
+import com.filemanager.model.dto.ApiResponse;
+import com.filemanager.model.dto.TranslationJobDTO;
+import com.filemanager.model.dto.TranslationMemoryStatsDTO;
+import com.filemanager.model.dto.TranslationUsageDTO;
+import com.filemanager.service.TranslateService;
+import com.filemanager.service.TranslationJobService;
+import com.filemanager.service.TranslationMemoryService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/translations")
+@RequiredArgsConstructor
+public class TranslationController {
+    private static final Logger logger = LoggerFactory.getLogger(TranslationController.class);
+
+    private final TranslationMemoryService translationMemoryService;
+    private final TranslationJobService translationJobService;
+    private final TranslateService translateService;
+
+    @GetMapping("/providers/usage")
+    public ResponseEntity<?> getProviderUsage() {
+        logger.info("Getting translation provider usage");
+        try {
+            List<TranslationUsageDTO> usage = translateService.getProviderUsage();
+            return ResponseEntity.ok(new ApiResponse<>(
+                200,
+                "success",
+                usage
+            ));
+        } catch (Exception e) {
+            logger.error("Failed to get translation provider usage", e);
+            throw e;
+        }
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<?> getTranslationJob(@PathVariable Long jobId) {
+        logger.info("Getting translation job with ID: {}", jobId);
+        try {
+            TranslationJobDTO job = translationJobService.getJob(jobId);
+            logger.debug("Translation job {} is {}", jobId, job.getStatus());
+            return ResponseEntity.ok(new ApiResponse<>(
+                200,
+                "success",
+                job
+            ));
+        } catch (Exception e) {
+            logger.error("Failed to get translation job: {}", jobId, e);
+            throw e;
+        }
+    }
+
+    @GetMapping("/memory/stats")
+    public ResponseEntity<?> getTranslationMemoryStats() {
+        logger.info("Getting translation memory statistics");
+        TranslationMemoryStatsDTO stats = translationMemoryService.getStats();
+        logger.debug("Translation memory hit ratio: {}", stats.getHitRatio());
+        return ResponseEntity.ok(new ApiResponse<>(
+            200,
+            "success",
+            stats
+        ));
+    }
+}
@@ -0,0 +1,19 @@
+package com.filemanager.exception;
+
+import java.io.IOException;
+
+/**
+ * Thrown while reading an upload once it has grown past the size the uploader is allowed
+ */
+public class FileTooLargeException extends IOException {
+    private final long limit;
+
+    public FileTooLargeException(long limit) {
+        super("File exceeds the upload limit of " + limit + " bytes");
+        this.limit = limit;
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+}
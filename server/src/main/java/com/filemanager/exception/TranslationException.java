@@ -0,0 +1,15 @@
+package com.filemanager.exception;
+
+/**
+ * A translation provider could not translate a request
+ */
+public class TranslationException extends Exception {
+
+    public TranslationException(String message) {
+        super(message);
+    }
+
+    public TranslationException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
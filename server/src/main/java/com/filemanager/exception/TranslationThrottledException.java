@@ -0,0 +1,12 @@
+package com.filemanager.exception;
+
+/**
+ * A translation provider rejected a request because too many were sent (HTTP 429). The request
+ * may be sent again once the provider has capacity.
+ */
+public class TranslationThrottledException extends TranslationException {
+
+    public TranslationThrottledException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -37,6 +37,7 @@ public abstract class BaseEntity {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
-    @Column(name = "is_deleted")
+    // Only written by the soft delete and purge statements, a stale entity must never undo a delete
+    @Column(name = "is_deleted", updatable = false)
     private Boolean isDeleted = false;
 }
\ No newline at end of file
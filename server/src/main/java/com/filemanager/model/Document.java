@@ -3,6 +3,7 @@ package com.filemanager.model;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import org.hibernate.annotations.SQLRestriction;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -11,6 +12,8 @@ import java.util.List;
 @EqualsAndHashCode(callSuper = true)
 @Entity
 @Table(name = "documents")
+// Deleted documents wait for StorageGarbageCollector, no query of the entity sees them
+@SQLRestriction("is_deleted IS NOT TRUE")
 public class Document extends BaseEntity {
     @Column(nullable = false)
     public String title;
@@ -72,6 +75,10 @@ public class Document extends BaseEntity {
     @Column(name = "master_document_id")
     public Long masterDocumentId;
 
+    // Counted by the first translation of the file, reset whenever the file is replaced
+    @Column(name = "char_count")
+    public Long characterCount;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
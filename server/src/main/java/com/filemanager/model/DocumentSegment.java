@@ -0,0 +1,40 @@
+package com.filemanager.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One translated paragraph of a translated document, together with the fingerprint of the
+ * master paragraph it was translated from. When the master changes, segments whose
+ * fingerprint is unchanged are reused instead of being translated again.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "document_segments")
+public class DocumentSegment {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "document_id", nullable = false)
+    private Long documentId;
+
+    @Column(name = "segment_index", nullable = false)
+    private Integer segmentIndex;
+
+    // SHA-256 of the master paragraph text
+    @Column(name = "source_hash", nullable = false, length = 64)
+    private String sourceHash;
+
+    @Column(name = "translated_text", columnDefinition = "TEXT")
+    private String translatedText;
+
+    public DocumentSegment(Long documentId, Integer segmentIndex, String sourceHash, String translatedText) {
+        this.documentId = documentId;
+        this.segmentIndex = segmentIndex;
+        this.sourceHash = sourceHash;
+        this.translatedText = translatedText;
+    }
+}
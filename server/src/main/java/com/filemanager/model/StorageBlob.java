@@ -0,0 +1,30 @@
+package com.filemanager.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * A file in the content-addressed local store, kept once per SHA-256 digest however many
+ * documents use it. The blob is removed from disk when the last document releases it.
+ */
+@Data
+@Entity
+@Table(name = "storage_blobs")
+public class StorageBlob {
+    // Hex encoded SHA-256 of the content, also the name of the file
+    @Id
+    @Column(length = 64)
+    private String digest;
+
+    @Column(nullable = false)
+    private Long size;
+
+    // Number of stored files referring to this blob
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount;
+
+    @Column(name = "created_at", nullable = false, updatable = false, insertable = false)
+    private LocalDateTime createdAt;
+}
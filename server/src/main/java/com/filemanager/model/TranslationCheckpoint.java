@@ -0,0 +1,42 @@
+package com.filemanager.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A segment translated by a job that has not completed yet. Checkpoints are written as soon as
+ * a group of segments comes back from the provider, so a job interrupted by a restart or a
+ * failure continues from them instead of translating the same text again. They are removed once
+ * the translated document has been stored.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "translation_checkpoints")
+public class TranslationCheckpoint {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // The translated document, so that a new job for the same document picks the checkpoints up too
+    @Column(name = "document_id", nullable = false)
+    private Long documentId;
+
+    @Column(name = "job_id", nullable = false)
+    private Long jobId;
+
+    // SHA-256 of the master segment text
+    @Column(name = "source_hash", nullable = false, length = 64)
+    private String sourceHash;
+
+    @Column(name = "translated_text", columnDefinition = "TEXT")
+    private String translatedText;
+
+    public TranslationCheckpoint(Long documentId, Long jobId, String sourceHash, String translatedText) {
+        this.documentId = documentId;
+        this.jobId = jobId;
+        this.sourceHash = sourceHash;
+        this.translatedText = translatedText;
+    }
+}
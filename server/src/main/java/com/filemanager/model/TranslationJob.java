@@ -0,0 +1,58 @@
+package com.filemanager.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@Table(name = "translation_jobs")
+public class TranslationJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // The translated (child) document this job produces
+    @Column(name = "document_id", nullable = false)
+    private Long documentId;
+
+    @Column(name = "master_document_id", nullable = false)
+    private Long masterDocumentId;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "source_lang")
+    private String sourceLang;
+
+    @Column(name = "target_lang", nullable = false)
+    private String targetLang;
+
+    @Column(name = "status")
+    @Enumerated(EnumType.STRING)
+    private TranslationJobStatus status = TranslationJobStatus.QUEUED;
+
+    @Column(name = "total_segments")
+    private Integer totalSegments = 0;
+
+    @Column(name = "translated_segments")
+    private Integer translatedSegments = 0;
+
+    @Column(name = "error_message")
+    private String errorMessage;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
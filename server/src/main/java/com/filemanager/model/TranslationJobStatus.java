@@ -0,0 +1,11 @@
+package com.filemanager.model;
+
+/**
+ * Enum representing the lifecycle of a background translation job.
+ */
+public enum TranslationJobStatus {
+    QUEUED,     // 等待执行
+    RUNNING,    // 翻译中
+    COMPLETED,  // 已完成
+    FAILED      // 失败
+}
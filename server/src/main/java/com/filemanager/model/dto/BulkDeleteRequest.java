@@ -0,0 +1,10 @@
+package com.filemanager.model.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkDeleteRequest {
+    private List<Long> ids;
+}
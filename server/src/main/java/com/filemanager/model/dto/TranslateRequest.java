@@ -2,8 +2,12 @@ package com.filemanager.model.dto;
 
 import lombok.Data;
 
+import java.util.List;
+
 @Data
 public class TranslateRequest {
     private String sourceLang;
     private String targetLang;
+    // Used by the multi-language endpoint instead of targetLang
+    private List<String> targetLangs;
 } 
\ No newline at end of file
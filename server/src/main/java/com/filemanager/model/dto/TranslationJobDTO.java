@@ -0,0 +1,22 @@
+package com.filemanager.model.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class TranslationJobDTO {
+    private Long jobId;
+    private Long documentId;
+    private Long masterDocumentId;
+    private String sourceLang;
+    private String targetLang;
+    private String status;
+    private Integer totalSegments;
+    private Integer translatedSegments;
+    private Double progress;          // 翻译进度百分比
+    private String errorMessage;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
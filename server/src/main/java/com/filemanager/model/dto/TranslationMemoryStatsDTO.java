@@ -0,0 +1,18 @@
+package com.filemanager.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TranslationMemoryStatsDTO {
+    private long hits;
+    private long misses;
+    private double hitRatio;
+    private long charactersSaved;   // 命中缓存而未发送给翻译服务的字符数
+    private long cachedEntries;     // 内存LRU中的条目数
+    private long storedEntries;     // 磁盘存储中的条目数
+    private long storeBytes;
+}
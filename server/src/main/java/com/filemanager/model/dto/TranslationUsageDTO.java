@@ -0,0 +1,15 @@
+package com.filemanager.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TranslationUsageDTO {
+    private String provider;
+    private Long characterCount;
+    private Long characterLimit; // null when the provider has no limit
+    private Boolean limitReached;
+}
@@ -6,6 +6,7 @@ import lombok.Data;
 public class UserStatsDTO {
     private Long userId;
     private Long totalWordCount;      // 总字数
+    private Long totalWordUsed;       // 已使用的翻译字数
     private Integer languageCount;     // 支持的语言数量
     private Long storageUsed;         // 已使用存储空间(bytes)
     private Long storageLimit;        // 存储空间限制(bytes)
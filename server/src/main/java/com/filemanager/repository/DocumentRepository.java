@@ -6,11 +6,13 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -44,4 +46,67 @@ public interface DocumentRepository extends JpaRepository<Document, Long>, JpaSp
     Page<Document> findAllPublished(Pageable pageable);
 
     List<Document> findByMasterDocumentId(Long masterDocumentId);
+
+    /**
+     * Mark documents as deleted together with the translations of those that are masters
+     *
+     * @return The number of documents marked, translations included
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE documents SET is_deleted = true, deleted_at = CURRENT_TIMESTAMP " +
+            "WHERE (id IN (:ids) OR (master_document_id IN (:ids) AND is_master IS NOT TRUE)) " +
+            "AND is_deleted IS NOT TRUE", nativeQuery = true)
+    int softDeleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Point a document at a new file unless it was deleted in the meantime
+     *
+     * @return 1 if the document was updated, 0 if it is gone or deleted
+     */
+    @Modifying
+    @Query(value = "UPDATE documents SET file_name = :fileName, file_path = :filePath, file_size = :fileSize, " +
+            "updated_at = CURRENT_TIMESTAMP WHERE id = :id AND is_deleted IS NOT TRUE", nativeQuery = true)
+    int updateFileIfNotDeleted(@Param("id") Long id, @Param("fileName") String fileName,
+                               @Param("filePath") String filePath, @Param("fileSize") Long fileSize);
+
+    /**
+     * Store the character count of the file of a document, unless the file was replaced meanwhile
+     */
+    @Modifying
+    @Query(value = "UPDATE documents SET char_count = :count WHERE id = :id AND file_name = :fileName", nativeQuery = true)
+    int updateCharacterCount(@Param("id") Long id, @Param("fileName") String fileName, @Param("count") long count);
+
+    /**
+     * Deleted documents whose storage is due to be collected. Native, because the entity never
+     * sees deleted rows. Translations that still share the file of their master carry its name.
+     */
+    @Query(value = "SELECT d.id AS \"id\", d.file_name AS \"fileName\", d.file_path AS \"filePath\", " +
+            "d.status AS \"status\", d.gc_attempts AS \"gcAttempts\", m.file_name AS \"masterFileName\" " +
+            "FROM documents d LEFT JOIN documents m ON m.id = d.master_document_id AND d.is_master IS NOT TRUE " +
+            "WHERE d.is_deleted = true AND d.gc_attempts < :maxAttempts " +
+            "AND (d.gc_retry_at IS NULL OR d.gc_retry_at <= CURRENT_TIMESTAMP) " +
+            "ORDER BY d.id LIMIT :limit", nativeQuery = true)
+    List<DeletedFile> findDeletedForCollection(@Param("maxAttempts") int maxAttempts, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "UPDATE documents SET gc_attempts = gc_attempts + 1, gc_retry_at = :retryAt WHERE id = :id", nativeQuery = true)
+    int markCollectionFailed(@Param("id") Long id, @Param("retryAt") LocalDateTime retryAt);
+
+    @Modifying
+    @Query(value = "DELETE FROM document_tags WHERE document_id IN (:ids)", nativeQuery = true)
+    int deleteTagsByDocumentIdIn(@Param("ids") Collection<Long> ids);
+
+    // Segments, translation jobs and checkpoints are removed by their ON DELETE CASCADE
+    @Modifying
+    @Query(value = "DELETE FROM documents WHERE id IN (:ids) AND is_deleted = true", nativeQuery = true)
+    int purgeDeletedByIdIn(@Param("ids") Collection<Long> ids);
+
+    interface DeletedFile {
+        Long getId();
+        String getFileName();
+        String getFilePath();
+        String getStatus();
+        Integer getGcAttempts();
+        String getMasterFileName();
+    }
 }
\ No newline at end of file
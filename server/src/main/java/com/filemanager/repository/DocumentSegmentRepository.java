@@ -0,0 +1,19 @@
+package com.filemanager.repository;
+
+import com.filemanager.model.DocumentSegment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface DocumentSegmentRepository extends JpaRepository<DocumentSegment, Long> {
+    List<DocumentSegment> findByDocumentIdOrderBySegmentIndex(Long documentId);
+
+    @Modifying
+    @Query("DELETE FROM DocumentSegment s WHERE s.documentId = :documentId")
+    void deleteByDocumentId(@Param("documentId") Long documentId);
+}
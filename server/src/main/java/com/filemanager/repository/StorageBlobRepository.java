@@ -0,0 +1,25 @@
+package com.filemanager.repository;
+
+import com.filemanager.model.StorageBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface StorageBlobRepository extends JpaRepository<StorageBlob, String> {
+
+    @Modifying
+    @Query(value = "INSERT INTO storage_blobs (digest, size, ref_count) VALUES (:digest, :size, 1) " +
+            "ON CONFLICT (digest) DO UPDATE SET ref_count = storage_blobs.ref_count + 1", nativeQuery = true)
+    void acquire(@Param("digest") String digest, @Param("size") long size);
+
+    @Modifying
+    @Query("UPDATE StorageBlob b SET b.refCount = b.refCount - 1 WHERE b.digest = :digest AND b.refCount > 0")
+    int release(@Param("digest") String digest);
+
+    @Modifying
+    @Query("DELETE FROM StorageBlob b WHERE b.digest = :digest AND b.refCount <= 0")
+    int deleteUnreferenced(@Param("digest") String digest);
+}
@@ -0,0 +1,135 @@
+package com.filemanager.repository;
+
+import com.filemanager.model.Document;
+import com.filemanager.model.TranslationJob;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the documents and jobs of a translation request as JDBC batches. Their ids are IDENTITY
+ * generated, which makes Hibernate insert entities one statement at a time.
+ */
+@Repository
+public class TranslationBatchRepository {
+
+    private static final String INSERT_DOCUMENT = "INSERT INTO documents (title, description, file_type, " +
+            "company_info, brand_info, product_category, document_type, language, version, creator_id, status, " +
+            "is_master, master_document_id, is_deleted, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, false, ?, ?)";
+
+    private static final String INSERT_TAG = "INSERT INTO document_tags (document_id, tag) VALUES (?, ?)";
+
+    private static final String INSERT_JOB = "INSERT INTO translation_jobs (document_id, master_document_id, " +
+            "user_id, source_lang, target_lang, status, total_segments, translated_segments, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Insert new documents with their tags and set the generated ids on them
+     */
+    public void insertDocuments(List<Document> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> ids = insert(INSERT_DOCUMENT, documents.size(), (ps, i) -> {
+            Document document = documents.get(i);
+            ps.setString(1, document.getTitle());
+            ps.setString(2, document.getDescription());
+            ps.setString(3, document.getFileType());
+            ps.setString(4, document.getCompanyInfo());
+            ps.setString(5, document.getBrandInfo());
+            ps.setString(6, document.getProductCategory());
+            ps.setString(7, document.getDocumentType());
+            ps.setString(8, document.getLanguage());
+            ps.setString(9, document.getVersion());
+            ps.setLong(10, document.getCreator().getId());
+            ps.setString(11, document.getStatus().name());
+            ps.setBoolean(12, !Boolean.FALSE.equals(document.getIsMaster()));
+            ps.setObject(13, document.getMasterDocumentId(), Types.BIGINT);
+            ps.setTimestamp(14, now);
+            ps.setTimestamp(15, now);
+        });
+
+        List<Object[]> tags = new ArrayList<>();
+        for (int i = 0; i < documents.size(); i++) {
+            Document document = documents.get(i);
+            document.setId(ids.get(i));
+            if (document.getTags() != null) {
+                for (String tag : document.getTags()) {
+                    tags.add(new Object[]{document.getId(), tag});
+                }
+            }
+        }
+        if (!tags.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_TAG, tags);
+        }
+    }
+
+    /**
+     * Insert new translation jobs and set the generated ids on them
+     */
+    public void insertJobs(List<TranslationJob> jobs) {
+        if (jobs.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> ids = insert(INSERT_JOB, jobs.size(), (ps, i) -> {
+            TranslationJob job = jobs.get(i);
+            ps.setLong(1, job.getDocumentId());
+            ps.setLong(2, job.getMasterDocumentId());
+            ps.setObject(3, job.getUserId(), Types.BIGINT);
+            ps.setString(4, job.getSourceLang());
+            ps.setString(5, job.getTargetLang());
+            ps.setString(6, job.getStatus().name());
+            ps.setInt(7, job.getTotalSegments());
+            ps.setInt(8, job.getTranslatedSegments());
+            ps.setTimestamp(9, now);
+        });
+        for (int i = 0; i < jobs.size(); i++) {
+            jobs.get(i).setId(ids.get(i));
+        }
+    }
+
+    private List<Long> insert(String sql, int size, RowSetter setter) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(sql, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        setter.set(ps, i);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return size;
+                    }
+                }, keys);
+        // Keys come back in the order of the rows of the batch
+        List<Map<String, Object>> rows = keys.getKeyList();
+        if (rows.size() != size) {
+            throw new IllegalStateException("Expected " + size + " generated ids, got " + rows.size());
+        }
+        return rows.stream().map(row -> ((Number) row.get("id")).longValue()).toList();
+    }
+
+    @FunctionalInterface
+    private interface RowSetter {
+        void set(PreparedStatement ps, int i) throws SQLException;
+    }
+}
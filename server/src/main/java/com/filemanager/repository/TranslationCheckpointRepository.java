@@ -0,0 +1,20 @@
+package com.filemanager.repository;
+
+import com.filemanager.model.TranslationCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TranslationCheckpointRepository extends JpaRepository<TranslationCheckpoint, Long> {
+    List<TranslationCheckpoint> findByDocumentIdAndSourceHashIn(Long documentId, Collection<String> sourceHashes);
+
+    @Modifying
+    @Query("DELETE FROM TranslationCheckpoint c WHERE c.documentId = :documentId")
+    void deleteByDocumentId(@Param("documentId") Long documentId);
+}
@@ -0,0 +1,32 @@
+package com.filemanager.repository;
+
+import com.filemanager.model.TranslationJob;
+import com.filemanager.model.TranslationJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface TranslationJobRepository extends JpaRepository<TranslationJob, Long> {
+    List<TranslationJob> findByMasterDocumentId(Long masterDocumentId);
+
+    List<TranslationJob> findByStatusInOrderById(List<TranslationJobStatus> statuses);
+
+    Optional<TranslationJob> findTopByDocumentIdOrderByIdDesc(Long documentId);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE TranslationJob j SET j.totalSegments = :total WHERE j.id = :id")
+    void updateTotalSegments(@Param("id") Long id, @Param("total") int total);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE TranslationJob j SET j.translatedSegments = j.translatedSegments + :count WHERE j.id = :id")
+    void addTranslatedSegments(@Param("id") Long id, @Param("count") int count);
+}
@@ -2,6 +2,7 @@ package com.filemanager.repository;
 
 import com.filemanager.model.UserStats;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -16,5 +17,8 @@ public interface UserStatsRepository extends JpaRepository<UserStats, Long> {
     @Query("SELECT COUNT(DISTINCT d.language) FROM Document d WHERE d.creator.id = :userId")
     Integer countLanguagesByUser(@Param("userId") Long userId);
 
+    @Modifying
+    @Query("UPDATE UserStats s SET s.totalWordUsed = COALESCE(s.totalWordUsed, 0) + :delta WHERE s.userId = :userId")
+    int addWordUsed(@Param("userId") Long userId, @Param("delta") long delta);
 
 }
\ No newline at end of file
@@ -3,18 +3,38 @@ package com.filemanager.service;
 import com.filemanager.model.Document;
 import com.filemanager.model.dto.DocumentDTO;
 import com.filemanager.model.dto.DashboardStatsDTO;
+import com.filemanager.model.dto.TranslationJobDTO;
 import com.filemanager.model.dto.UserDTO;
-import org.springframework.core.io.Resource;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 public interface DocumentService {
     DocumentDTO uploadDocument(MultipartFile file, String title, String description, List<String> tags, 
                              String companyInfo, String brandInfo, String productCategory, 
                              String documentType, String language, String version);
+
+    /**
+     * Upload a document from a raw stream. The content goes straight into the storage backend in
+     * one pass, nothing is spooled to a temporary file. The size limit depends on the
+     * subscription of the current user.
+     *
+     * @param content The file content
+     * @param contentLength The length of the content, or -1 if unknown
+     * @param originalFileName The name of the file on the client
+     * @param contentType The MIME type of the file
+     * @return The created document DTO
+     */
+    DocumentDTO uploadDocument(InputStream content, long contentLength, String originalFileName, String contentType,
+                             String title, String description, List<String> tags,
+                             String companyInfo, String brandInfo, String productCategory,
+                             String documentType, String language, String version);
     DocumentDTO getDocument(Long id);
     Page<DocumentDTO> getDocuments(Pageable pageable);
     Page<DocumentDTO> searchDocuments(String keyword, Pageable pageable);
@@ -22,7 +42,37 @@ public interface DocumentService {
                              String companyInfo, String brandInfo, String productCategory, 
                              String documentType, String language, String version);
     void deleteDocument(Long id);
-    Resource downloadDocument(Long id);
+
+    /**
+     * Delete several documents at once with one statement. Like a single delete it only marks the
+     * documents as deleted, their files are removed in batches by the storage collector. Deleting a
+     * master deletes its translations too. Unknown IDs are skipped.
+     *
+     * @param ids The IDs of the documents
+     * @return The number of documents deleted, translations included
+     */
+    int deleteDocuments(List<Long> ids);
+
+    /**
+     * Replace the file of a master document. Every translation of the document is flagged
+     * NEEDS_UPDATE and refreshed in the background, re-translating only the paragraphs that changed.
+     *
+     * @param id The ID of the master document
+     * @param file The new file
+     * @return The updated document DTO
+     */
+    DocumentDTO replaceDocumentFile(Long id, MultipartFile file);
+
+    /**
+     * Write the file of a document to the response, honoring a single byte range in the Range
+     * header. Local files are sent with sendfile when the container supports it, OSS files with a
+     * ranged GET, so partial requests never transfer the whole file.
+     *
+     * @param id The ID of the document
+     * @param request The download request
+     * @param response The response the file is written to
+     */
+    void downloadDocument(Long id, HttpServletRequest request, HttpServletResponse response) throws IOException;
     String getPreviewUrl(Long id);
     
     /**
@@ -52,14 +102,26 @@ public interface DocumentService {
     DashboardStatsDTO getDashboardStats();
 
     /**
-     * Translate a document to another language
+     * Translate a document to another language. The translated document is created right away
+     * with status IN_PROGRESS and the translation itself runs as a background job.
      *
      * @param id The ID of the document to translate
      * @param sourceLang The source language code
      * @param targetLang The target language code
-     * @return The translated document DTO
+     * @return The queued translation job DTO
+     */
+    TranslationJobDTO translateDocument(Long id, String sourceLang, String targetLang);
+
+    /**
+     * Translate a document into several languages in one pass. One translated document and one
+     * job are created per language, and all jobs share a single parse of the master file.
+     *
+     * @param id The ID of the document to translate
+     * @param sourceLang The source language code
+     * @param targetLangs The target language codes
+     * @return The queued translation job DTOs, in the order of targetLangs
      */
-    DocumentDTO translateDocument(Long id, String sourceLang, String targetLang);
+    List<TranslationJobDTO> translateDocument(Long id, String sourceLang, List<String> targetLangs);
 
     /**
      * Get all translations for a master document
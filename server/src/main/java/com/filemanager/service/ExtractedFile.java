@@ -0,0 +1,32 @@
+package com.filemanager.service;
+
+import java.util.List;
+
+/**
+ * The segments of a source file, extracted a single time and shared by the character count and
+ * by every language the file is translated into
+ */
+public interface ExtractedFile extends AutoCloseable {
+
+    /**
+     * Count the characters of the segments that are sent for translation
+     *
+     * @return The number of characters
+     */
+    long countCharacters();
+
+    /**
+     * Translate the file into several languages concurrently
+     *
+     * @param targets One entry per language to translate into, a target that fails has its
+     *                failure set and does not stop the others
+     */
+    void translate(List<TranslationTarget> targets) throws InterruptedException;
+
+    /**
+     * Release what the extraction holds on to
+     */
+    @Override
+    default void close() {
+    }
+}
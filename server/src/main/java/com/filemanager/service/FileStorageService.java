@@ -0,0 +1,52 @@
+package com.filemanager.service;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+public interface FileStorageService {
+    /**
+     * Store an uploaded file under the given name in the configured storage backend
+     *
+     * @param file The uploaded file
+     * @param fileName The name to store the file under
+     * @return The path or URL of the stored file
+     * @throws IOException If an I/O error occurs
+     */
+    String store(MultipartFile file, String fileName) throws IOException;
+
+    /**
+     * Store a local file under the given name in the configured storage backend
+     *
+     * @param file The local file, it is left in place
+     * @param fileName The name to store the file under
+     * @param contentType The MIME type of the file
+     * @return The path or URL of the stored file
+     * @throws IOException If an I/O error occurs
+     */
+    String store(Path file, String fileName, String contentType) throws IOException;
+
+    /**
+     * Store a stream under the given name in one pass, without spooling it to a temporary file
+     *
+     * @param content The content to store, read to its end but not closed
+     * @param contentLength The length of the content, or -1 if unknown
+     * @param fileName The name to store the file under
+     * @param contentType The MIME type of the content
+     * @return The path or URL of the stored file
+     * @throws IOException If an I/O error occurs, nothing is left in storage in that case
+     */
+    String store(InputStream content, long contentLength, String fileName, String contentType) throws IOException;
+
+    /**
+     * Delete a stored file from the private storage. Local files are content addressed, so a file
+     * stored with the same bytes by other documents stays until the last of them is deleted.
+     *
+     * @param fileName The name the file was stored under
+     * @param filePath The path returned when the file was stored
+     * @throws IOException If an I/O error occurs
+     */
+    void delete(String fileName, String filePath) throws IOException;
+}
@@ -0,0 +1,40 @@
+package com.filemanager.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+public interface OssCacheService {
+    /**
+     * Get a local copy of a file in Aliyun OSS, downloading it on a miss. Concurrent misses for
+     * the same object share one download. The copy must not be modified or deleted by the caller.
+     *
+     * @param objectName The object name in OSS
+     * @return The cached file, or null if the cache is disabled or the object is too large for it
+     * @throws IOException If the download fails
+     */
+    Path getFile(String objectName) throws IOException;
+
+    /**
+     * Like {@link #getFile(String)}, but the cached copy is kept on disk until it is unpinned, even
+     * if it is evicted or invalidated meanwhile. For callers that read the file for a long time.
+     *
+     * @param objectName The object name in OSS
+     * @return The pinned file, or null if the cache is disabled or the object is too large for it
+     * @throws IOException If the download fails
+     */
+    Path pinFile(String objectName) throws IOException;
+
+    /**
+     * Give back a file returned by {@link #pinFile(String)}, once for every call
+     *
+     * @param file The pinned file
+     */
+    void unpinFile(Path file);
+
+    /**
+     * Drop the cached copy of an object, to be called whenever the object is deleted or changed
+     *
+     * @param objectName The object name in OSS
+     */
+    void invalidate(String objectName);
+}
@@ -4,7 +4,11 @@ import org.springframework.core.io.Resource;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Set;
 
 public interface OssService {
     /**
@@ -17,6 +21,30 @@ public interface OssService {
      */
     String uploadFile(MultipartFile file, String objectName) throws IOException;
 
+    /**
+     * Upload a local file to Aliyun OSS
+     *
+     * @param file The local file to upload
+     * @param objectName The object name in OSS
+     * @param contentType The MIME type of the file
+     * @return The URL of the uploaded file
+     * @throws IOException If an I/O error occurs
+     */
+    String uploadFile(Path file, String objectName, String contentType) throws IOException;
+
+    /**
+     * Upload a stream to Aliyun OSS in one pass. Streams of unknown length or above the multipart
+     * threshold are sent in parts, so memory use stays bounded whatever the size.
+     *
+     * @param content The content to upload, read to its end but not closed
+     * @param contentLength The length of the content, or -1 if unknown
+     * @param objectName The object name in OSS
+     * @param contentType The MIME type of the content
+     * @return The URL of the uploaded file
+     * @throws IOException If an I/O error occurs
+     */
+    String uploadFile(InputStream content, long contentLength, String objectName, String contentType) throws IOException;
+
     /**
      * Download a file from Aliyun OSS
      *
@@ -26,6 +54,24 @@ public interface OssService {
      */
     Resource downloadFile(String objectName) throws IOException;
 
+    /**
+     * Open a byte range of a file in Aliyun OSS with a ranged GET, only that range is transferred
+     *
+     * @param objectName The object name in OSS
+     * @param start The first byte of the range
+     * @param end The last byte of the range, inclusive
+     * @return The content of the range, closing it releases the connection
+     */
+    InputStream openRange(String objectName, long start, long end);
+
+    /**
+     * Get the size of a file in Aliyun OSS without downloading it
+     *
+     * @param objectName The object name in OSS
+     * @return The size in bytes
+     */
+    long getObjectLength(String objectName);
+
     /**
      * Delete a file from Aliyun OSS
      *
@@ -38,7 +84,26 @@ public interface OssService {
     void deletePublicFile(String objectName) throws IOException;
 
     /**
-     * Generate a signed URL for a file in Aliyun OSS
+     * Delete files from the private bucket with batched DeleteObjects requests
+     *
+     * @param objectNames The object names in OSS
+     * @return The object names OSS did not confirm as deleted, objects that did not exist count as deleted
+     * @throws IOException If an I/O error occurs
+     */
+    Set<String> deleteFiles(Collection<String> objectNames) throws IOException;
+
+    /**
+     * Delete files from the public bucket with batched DeleteObjects requests
+     *
+     * @param objectNames The object names in OSS
+     * @return The object names OSS did not confirm as deleted, objects that did not exist count as deleted
+     * @throws IOException If an I/O error occurs
+     */
+    Set<String> deletePublicFiles(Collection<String> objectNames) throws IOException;
+
+    /**
+     * Generate a signed URL for a file in Aliyun OSS. URLs are cached per object and reused while
+     * they remain valid for more than a safety margin, or until the object is uploaded or deleted.
      *
      * @param objectName The object name in OSS
      * @param expirationInMillis The expiration time in milliseconds
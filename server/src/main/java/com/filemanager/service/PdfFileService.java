@@ -0,0 +1,17 @@
+package com.filemanager.service;
+
+import java.io.IOException;
+
+public interface PdfFileService {
+
+    /**
+     * Extract the text blocks of every page of a PDF file with their positions. Each language
+     * the result is translated into copies the file page by page, redrawing the blocks of a page
+     * in the target language and writing the page out before the next one is read.
+     *
+     * @param file The local path of the PDF file
+     * @param listener Receives the time spent extracting
+     * @return The extracted blocks, ready to be counted and translated
+     */
+    ExtractedFile extractPdfFile(String file, TranslationProgressListener listener) throws IOException;
+}
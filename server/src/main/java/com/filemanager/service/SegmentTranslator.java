@@ -0,0 +1,18 @@
+package com.filemanager.service;
+
+import com.filemanager.exception.TranslationException;
+
+import java.util.List;
+
+/**
+ * Translates the segments of one file into one target language. File services call it with
+ * successive groups of segments, in document order.
+ */
+@FunctionalInterface
+public interface SegmentTranslator {
+    /**
+     * @param segments The source segments
+     * @return The translated segments, in the same order as {@code segments}
+     */
+    List<String> translate(List<String> segments) throws TranslationException, InterruptedException;
+}
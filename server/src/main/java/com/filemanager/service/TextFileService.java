@@ -0,0 +1,17 @@
+package com.filemanager.service;
+
+import java.io.IOException;
+
+public interface TextFileService {
+
+    /**
+     * Split a UTF-8 text file on paragraph and sentence boundaries. Each language the result is
+     * translated into writes its translation out in order while later chunks are still being
+     * translated.
+     *
+     * @param file The local path of the text file
+     * @param listener Receives the time spent extracting
+     * @return The extracted chunks, ready to be counted and translated
+     */
+    ExtractedFile extractTextFile(String file, TranslationProgressListener listener) throws IOException;
+}
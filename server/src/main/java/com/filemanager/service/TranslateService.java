@@ -1,13 +1,59 @@
 package com.filemanager.service;
 
 
-import com.deepl.api.DeepLException;
+import com.filemanager.exception.TranslationException;
+import com.filemanager.model.dto.TranslationUsageDTO;
 
-import java.io.IOException;
+import java.util.List;
 
 public interface TranslateService {
 
-    String translateText(String text, String sourceLang, String targetLang) throws DeepLException, InterruptedException;
+    String translateText(String text, String sourceLang, String targetLang) throws TranslationException, InterruptedException;
 
+    /**
+     * Translate a list of segments, packing them into as few provider requests as the
+     * provider's request limits allow
+     *
+     * @param texts The segments to translate
+     * @param sourceLang The source language code
+     * @param targetLang The target language code
+     * @return The translated segments, in the same order as {@code texts}
+     */
+    List<String> translateTexts(List<String> texts, String sourceLang, String targetLang) throws TranslationException, InterruptedException;
 
-} 
\ No newline at end of file
+    /**
+     * Translate a list of segments like {@link #translateTexts(List, String, String)}, reporting
+     * every provider request to the listener as soon as it has returned. Segments served from the
+     * translation memory, passed through or deduplicated are never reported.
+     *
+     * @param texts The segments to translate
+     * @param sourceLang The source language code
+     * @param targetLang The target language code
+     * @param listener Called once per provider request, possibly from several threads at once
+     * @return The translated segments, in the same order as {@code texts}
+     */
+    List<String> translateTexts(List<String> texts, String sourceLang, String targetLang, TranslationListener listener)
+            throws TranslationException, InterruptedException;
+
+    /**
+     * Get the quota usage of every configured translation provider
+     *
+     * @return One entry per provider, providers that cannot be reached are left out
+     */
+    List<TranslationUsageDTO> getProviderUsage();
+
+    /**
+     * Receives the segments of a translateTexts call that a provider request translated
+     */
+    @FunctionalInterface
+    interface TranslationListener {
+        /**
+         * @param indexes Indexes into the translated list of the segments the request covered,
+         *                duplicates of a sent segment included
+         * @param translations The translations of those segments, in the same order
+         * @param characters The characters sent to the provider
+         */
+        void onTranslated(List<Integer> indexes, List<String> translations, long characters);
+    }
+
+} 
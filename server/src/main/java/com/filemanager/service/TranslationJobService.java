@@ -0,0 +1,30 @@
+package com.filemanager.service;
+
+import com.filemanager.model.dto.TranslationJobDTO;
+
+import java.util.List;
+
+public interface TranslationJobService {
+    /**
+     * Queue a saved translation job on the background worker pool
+     *
+     * @param jobId The ID of the job to run
+     */
+    void submit(Long jobId);
+
+    /**
+     * Queue saved jobs of the same master document as one unit of work, so the master file is
+     * fetched and parsed once for all of their target languages
+     *
+     * @param jobIds The IDs of the jobs to run
+     */
+    void submit(List<Long> jobIds);
+
+    /**
+     * Get the status and progress of a translation job
+     *
+     * @param jobId The ID of the job
+     * @return The translation job DTO
+     */
+    TranslationJobDTO getJob(Long jobId);
+}
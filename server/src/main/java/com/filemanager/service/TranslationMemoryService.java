@@ -0,0 +1,32 @@
+package com.filemanager.service;
+
+import com.filemanager.model.dto.TranslationMemoryStatsDTO;
+
+public interface TranslationMemoryService {
+    /**
+     * Look up a previously translated segment
+     *
+     * @param text The source segment
+     * @param sourceLang The source language code, may be null for auto-detection
+     * @param targetLang The target language code
+     * @return The stored translation, or null on a miss
+     */
+    String lookup(String text, String sourceLang, String targetLang);
+
+    /**
+     * Remember the translation of a segment
+     *
+     * @param text The source segment
+     * @param sourceLang The source language code, may be null for auto-detection
+     * @param targetLang The target language code
+     * @param translation The translated segment
+     */
+    void store(String text, String sourceLang, String targetLang, String translation);
+
+    /**
+     * Get hit/miss counters of the translation memory since startup
+     *
+     * @return Translation memory statistics DTO
+     */
+    TranslationMemoryStatsDTO getStats();
+}
@@ -0,0 +1,39 @@
+package com.filemanager.service;
+
+/**
+ * Receives progress updates from a file translation run
+ */
+public interface TranslationProgressListener {
+    TranslationProgressListener NONE = new TranslationProgressListener() {
+        @Override
+        public void onSegmentsFound(int total) {
+        }
+
+        @Override
+        public void onSegmentsTranslated(int count) {
+        }
+    };
+
+    /**
+     * Called once the segments of the file have been extracted
+     *
+     * @param total The number of segments to translate
+     */
+    void onSegmentsFound(int total);
+
+    /**
+     * Called each time a group of segments has been translated
+     *
+     * @param count The number of segments translated since the last call
+     */
+    void onSegmentsTranslated(int count);
+
+    /**
+     * Called when a stage of the translation run (loading, extraction, saving) has finished
+     *
+     * @param stage The stage name, one of the TranslationMetrics stage constants
+     * @param nanos How long the stage took
+     */
+    default void onStageCompleted(String stage, long nanos) {
+    }
+}
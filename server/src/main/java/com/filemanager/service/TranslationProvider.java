@@ -0,0 +1,69 @@
+package com.filemanager.service;
+
+import com.filemanager.exception.TranslationException;
+import com.filemanager.model.dto.TranslationUsageDTO;
+
+import java.util.List;
+
+/**
+ * A machine translation engine. TranslateService splits work into batches within the limits a
+ * provider declares and picks the provider for each language pair from configuration.
+ */
+public interface TranslationProvider {
+
+    /**
+     * The name used to select this provider in configuration
+     */
+    String getName();
+
+    /**
+     * Whether this provider can translate between the given languages
+     *
+     * @param sourceLang The source language code, null for automatic detection
+     * @param targetLang The target language code
+     */
+    boolean supports(String sourceLang, String targetLang);
+
+    /**
+     * The largest number of texts accepted in one translate call
+     */
+    int getMaxBatchSize();
+
+    /**
+     * The largest form-encoded size of the texts accepted in one translate call
+     */
+    int getMaxBatchBytes();
+
+    /**
+     * Whether translations from this provider may be kept in the translation memory
+     */
+    default boolean isCacheable() {
+        return true;
+    }
+
+    /**
+     * Block until the provider may accept a request of this many characters. Callers wait here
+     * before they take an in-flight slot, so a throttled provider never holds slots while it waits.
+     *
+     * @param characters The characters of the request about to be sent
+     */
+    default void awaitCapacity(int characters) throws InterruptedException {
+    }
+
+    /**
+     * Translate a batch of texts. Callers have waited on {@link #awaitCapacity} first; a request
+     * the provider throttles fails with {@link com.filemanager.exception.TranslationThrottledException}
+     * and may be sent again after waiting once more.
+     *
+     * @param texts The texts to translate, within the batch limits of this provider
+     * @param sourceLang The source language code, null for automatic detection
+     * @param targetLang The target language code
+     * @return The translations, in the same order as the texts
+     */
+    List<String> translate(List<String> texts, String sourceLang, String targetLang) throws TranslationException, InterruptedException;
+
+    /**
+     * Report how much of the quota of this provider has been used
+     */
+    TranslationUsageDTO getUsage() throws TranslationException, InterruptedException;
+}
@@ -0,0 +1,54 @@
+package com.filemanager.service;
+
+public interface TranslationQuotaService {
+
+    /**
+     * Fail fast when the user has no translation characters left
+     *
+     * @param userId The ID of the user
+     */
+    void checkAvailable(Long userId);
+
+    /**
+     * Reserve characters for a translation job before anything is sent to the provider
+     *
+     * @param userId The ID of the user
+     * @param characters The most characters the job can consume
+     * @return The reservation, through which the job counts what it consumes
+     * @throws com.filemanager.exception.QuotaExceededException if the reservation does not fit
+     *         into the remaining quota
+     */
+    Reservation reserve(Long userId, long characters);
+
+    /**
+     * Get the characters the user can still translate, after consumption and open reservations
+     *
+     * @param userId The ID of the user
+     * @return The remaining characters
+     */
+    long getRemaining(Long userId);
+
+    /**
+     * Write the consumption counted since the last flush to user_stats
+     */
+    void flush();
+
+    /**
+     * Characters held for one job. Consumed characters move from the reservation to the used
+     * count, so a running job never counts against the quota twice.
+     */
+    interface Reservation {
+        /**
+         * Count characters sent for translation. Only an in-memory counter is updated, it reaches
+         * user_stats with the next flush.
+         *
+         * @param characters The characters consumed
+         */
+        void consume(long characters);
+
+        /**
+         * Give back what the job did not consume, once it has finished. Later calls do nothing.
+         */
+        void release();
+    }
+}
@@ -0,0 +1,18 @@
+package com.filemanager.service;
+
+import lombok.Data;
+
+/**
+ * One output of a multi-language file translation: where to write it, how to translate its
+ * segments and who to report progress to
+ */
+@Data
+public class TranslationTarget {
+    private final String targetLang;
+    private final String outputFile;
+    private final SegmentTranslator translator;
+    private final TranslationProgressListener listener;
+
+    // Set when this target could not be translated, the other targets are not affected
+    private Exception failure;
+}
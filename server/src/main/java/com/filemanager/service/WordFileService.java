@@ -1,10 +1,31 @@
 package com.filemanager.service;
 
 
-import com.deepl.api.DeepLException;
+import com.filemanager.exception.TranslationException;
 
 public interface WordFileService {
 
-    String translateWordFile(String file, String sourceLang, String targetLang) throws DeepLException, InterruptedException;
+    String translateWordFile(String file, String outputFile, String sourceLang, String targetLang) throws TranslationException, InterruptedException;
 
-} 
\ No newline at end of file
+    /**
+     * Translate a Word file, reporting progress as groups of paragraphs are translated
+     *
+     * @param file The local path of the Word file
+     * @param outputFile The local path the translated .docx file is written to
+     * @param translator Translates groups of paragraphs into the target language
+     * @param listener Receives the segment count and translation progress
+     * @return The path of the translated file
+     */
+    String translateWordFile(String file, String outputFile, SegmentTranslator translator, TranslationProgressListener listener) throws TranslationException, InterruptedException;
+
+    /**
+     * Parse a Word file and extract its paragraphs. Every language the result is translated into
+     * rewrites the parsed file, it is not loaded again.
+     *
+     * @param file The local path of the Word file
+     * @param listener Receives the time spent loading and extracting
+     * @return The parsed file, it must be closed once it has been translated
+     */
+    ExtractedFile extractWordFile(String file, TranslationProgressListener listener);
+
+} 
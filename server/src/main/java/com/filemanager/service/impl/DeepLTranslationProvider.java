@@ -0,0 +1,158 @@
+package com.filemanager.service.impl;
+
+import com.deepl.api.DeepLException;
+import com.deepl.api.Language;
+import com.deepl.api.TextResult;
+import com.deepl.api.TooManyRequestsException;
+import com.deepl.api.Translator;
+import com.deepl.api.Usage;
+import com.filemanager.exception.TranslationException;
+import com.filemanager.exception.TranslationThrottledException;
+import com.filemanager.model.dto.TranslationUsageDTO;
+import com.filemanager.service.TranslationProvider;
+import com.filemanager.util.TranslationRateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+public class DeepLTranslationProvider implements TranslationProvider {
+    private static final Logger logger = LoggerFactory.getLogger(DeepLTranslationProvider.class);
+
+    // DeepL accepts at most 50 texts and 128 KiB of request body per call
+    private static final int MAX_TEXTS_PER_REQUEST = 50;
+    private static final int MAX_REQUEST_BYTES = 120 * 1024; // leave room for the other form fields
+    // DeepL only accepts these targets with a region
+    private static final Map<String, String> TARGET_VARIANTS = Map.of("EN", "EN-US", "PT", "PT-BR");
+
+    @Autowired
+    private Translator translator;
+    @Autowired
+    private TranslationRateLimiter translationRateLimiter;
+
+    // Loaded on first use, null until DeepL has answered
+    private volatile Set<String> sourceLanguages;
+    private volatile Set<String> targetLanguages;
+
+    @Override
+    public String getName() {
+        return "deepl";
+    }
+
+    @Override
+    public boolean supports(String sourceLang, String targetLang) {
+        if (!loadLanguages()) {
+            // Let the request itself fail if DeepL is unreachable
+            return true;
+        }
+        boolean source = sourceLang == null || sourceLang.isBlank()
+            || sourceLanguages.contains(baseLanguage(sourceLang));
+        return source && targetLanguages.contains(targetLanguage(targetLang));
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return MAX_TEXTS_PER_REQUEST;
+    }
+
+    @Override
+    public int getMaxBatchBytes() {
+        return MAX_REQUEST_BYTES;
+    }
+
+    /**
+     * Wait for the shared rate limiter, which also pauses every caller after a throttled request
+     */
+    @Override
+    public void awaitCapacity(int characters) throws InterruptedException {
+        translationRateLimiter.acquire(characters);
+    }
+
+    /**
+     * Send one request, the caller has waited on {@link #awaitCapacity} for it
+     */
+    @Override
+    public List<String> translate(List<String> texts, String sourceLang, String targetLang) throws TranslationException, InterruptedException {
+        // Source languages never carry a region in DeepL
+        String source = sourceLang == null || sourceLang.isBlank() ? null : baseLanguage(sourceLang);
+        String target = targetLanguage(targetLang);
+        try {
+            List<TextResult> translated = translator.translateText(texts, source, target);
+            translationRateLimiter.onSuccess();
+            List<String> results = new ArrayList<>(translated.size());
+            for (TextResult result : translated) {
+                results.add(result.getText());
+            }
+            return results;
+        } catch (TooManyRequestsException ex) {
+            translationRateLimiter.onThrottled();
+            throw new TranslationThrottledException("DeepL is throttling requests", ex);
+        } catch (DeepLException ex) {
+            throw new TranslationException("DeepL translation failed: " + ex.getMessage(), ex);
+        }
+    }
+
+    @Override
+    public TranslationUsageDTO getUsage() throws TranslationException, InterruptedException {
+        try {
+            Usage.Detail character = translator.getUsage().getCharacter();
+            if (character == null) {
+                return new TranslationUsageDTO(getName(), null, null, false);
+            }
+            return new TranslationUsageDTO(getName(), character.getCount(), character.getLimit(), character.limitReached());
+        } catch (DeepLException ex) {
+            throw new TranslationException("Could not read DeepL usage: " + ex.getMessage(), ex);
+        }
+    }
+
+    private boolean loadLanguages() {
+        if (targetLanguages != null) {
+            return true;
+        }
+        try {
+            sourceLanguages = codes(translator.getSourceLanguages());
+            targetLanguages = codes(translator.getTargetLanguages());
+            logger.info("DeepL supports {} source and {} target languages", sourceLanguages.size(), targetLanguages.size());
+            return true;
+        } catch (DeepLException ex) {
+            logger.warn("Could not load DeepL languages: {}", ex.getMessage());
+            return false;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static Set<String> codes(List<Language> languages) {
+        return languages.stream()
+            .map(language -> language.getCode().toUpperCase(Locale.ROOT))
+            .collect(Collectors.toSet());
+    }
+
+    /**
+     * The DeepL target code for a language: the code itself if DeepL lists it, otherwise its base
+     * language, with EN and PT mapped to the regional variant DeepL requires
+     */
+    private String targetLanguage(String code) {
+        String upper = code.toUpperCase(Locale.ROOT);
+        if (targetLanguages != null && targetLanguages.contains(upper)) {
+            return upper;
+        }
+        String base = baseLanguage(upper);
+        return TARGET_VARIANTS.getOrDefault(base, base);
+    }
+
+    private static String baseLanguage(String code) {
+        String upper = code.toUpperCase(Locale.ROOT);
+        int dash = upper.indexOf('-');
+        return dash > 0 ? upper.substring(0, dash) : upper;
+    }
+}
@@ -3,50 +3,82 @@ package com.filemanager.service.impl;
 import com.filemanager.exception.ResourceNotFoundException;
 import com.filemanager.model.Document;
 import com.filemanager.model.DocumentStatus;
+import com.filemanager.model.TranslationJob;
 import com.filemanager.model.User;
 import com.filemanager.model.dto.DocumentDTO;
 import com.filemanager.model.dto.UserDTO;
 import com.filemanager.model.dto.DashboardStatsDTO;
+import com.filemanager.model.dto.TranslationJobDTO;
 import com.filemanager.repository.DocumentRepository;
+import com.filemanager.repository.TranslationBatchRepository;
+import com.filemanager.repository.TranslationJobRepository;
 import com.filemanager.service.DocumentService;
+import com.filemanager.service.FileStorageService;
+import com.filemanager.service.OssCacheService;
 import com.filemanager.service.OssService;
+import com.filemanager.service.TranslationJobService;
+import com.filemanager.service.TranslationQuotaService;
 import com.filemanager.service.UserService;
+import com.filemanager.util.HashUtils;
+import com.filemanager.util.SizeLimitedInputStream;
 import jakarta.persistence.criteria.Predicate;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
 public class DocumentServiceImpl implements DocumentService {
     private static final Logger logger = LoggerFactory.getLogger(DocumentServiceImpl.class);
-    private static final long MAX_FILE_SIZE = 50 * 1024 * 1024; // 50MB
     private static final List<String> ALLOWED_FILE_TYPES = Arrays.asList(
         "application/vnd.openxmlformats-officedocument.wordprocessingml.document", // .docx
         "application/msword", // .doc
         "application/pdf", // .pdf
         "text/plain" // .txt
     );
+    private static final List<String> TRANSLATABLE_FILE_TYPES = Arrays.asList("word", "pdf", "text");
+    // Request attributes of Tomcat's sendfile support
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
 
     private String standardizeContentType(String contentType, String fileName) {
         if (contentType == null || fileName == null) {
@@ -82,14 +114,26 @@ public class DocumentServiceImpl implements DocumentService {
     private UserService userService;
     @Autowired
     private OssService ossService;
-    @Value("${file.upload-dir}") 
-    private String uploadDir;
+    @Autowired
+    private OssCacheService ossCacheService;
+    @Autowired
+    private FileStorageService fileStorageService;
+    @Autowired
+    private TranslationJobRepository translationJobRepository;
+    @Autowired
+    private TranslationBatchRepository translationBatchRepository;
+    @Autowired
+    private TranslationJobService translationJobService;
+    @Autowired
+    private TranslationQuotaService translationQuotaService;
     @Value("${file.storage-type}")
     private String storageType;
     @Value("${file.download-url-expiration}")
     private long urlExpiration;
     @Value("${aliyun.oss.public-bucket-name}")
     private String publicBucketName;
+    @Value("${document.bulk-delete.max-ids:5000}")
+    private int bulkDeleteMaxIds;
 
 
     @Override
@@ -100,11 +144,11 @@ public class DocumentServiceImpl implements DocumentService {
         logger.debug("Processing document upload - title: {}, size: {}, type: {}", 
             title, file.getSize(), file.getContentType());
         
+        User currentUser = (User) userService.loadUserByUsername(
+                userService.getCurrentUser().getUsername());
+
         // Validate file size
-        if (file.getSize() > MAX_FILE_SIZE) {
-            logger.error("File size exceeds limit: {}", file.getSize());
-            throw new RuntimeException("文件大小不能超过50MB");
-        }
+        checkUploadSize(currentUser, file.getSize());
         
         // Validate file type
         String contentType = file.getContentType();
@@ -119,20 +163,7 @@ public class DocumentServiceImpl implements DocumentService {
         
         try {
             String fileName = UUID.randomUUID().toString() + "_" + file.getOriginalFilename();
-            String filePath;
-            
-            if ("oss".equals(storageType)) {
-                // Upload to Aliyun OSS
-                filePath = ossService.uploadFile(file, fileName);
-                logger.debug("File uploaded to OSS: {}", filePath);
-            } else {
-                // Upload to local storage
-                Path targetLocation = Paths.get(uploadDir).resolve(fileName);
-                logger.debug("Saving file to: {}", targetLocation);
-                Files.copy(file.getInputStream(), targetLocation);
-                filePath = targetLocation.toString();
-                logger.debug("File saved successfully");
-            }
+            String filePath = fileStorageService.store(file, fileName);
 
             Document document = new Document();
             document.setTitle(title);
@@ -150,8 +181,6 @@ public class DocumentServiceImpl implements DocumentService {
             document.setVersion(version);
             document.setStatus(DocumentStatus.DRAFT);
             
-            User currentUser = (User) userService.loadUserByUsername(
-                    userService.getCurrentUser().getUsername());
             document.setCreator(currentUser);
             logger.debug("Document metadata set, creator: {}", currentUser.getUsername());
 
@@ -168,6 +197,100 @@ public class DocumentServiceImpl implements DocumentService {
         }
     }
 
+    // Not transactional, a database connection must not be held while a large upload streams in
+    @Override
+    public DocumentDTO uploadDocument(InputStream content, long contentLength, String originalFileName, String contentType,
+                                    String title, String description, List<String> tags,
+                                    String companyInfo, String brandInfo, String productCategory,
+                                    String documentType, String language, String version) {
+        logger.debug("Processing streaming upload - title: {}, declared size: {}, type: {}",
+            title, contentLength, contentType);
+
+        User currentUser = (User) userService.loadUserByUsername(
+                userService.getCurrentUser().getUsername());
+        // A declared length is checked before reading, otherwise the stream stops at the limit
+        long limit = getUploadLimitBySubscription(currentUser.getSubscriptionType());
+        checkUploadSize(currentUser, contentLength);
+
+        // Only the last path element, the name is used as part of a local file path
+        String baseName = Paths.get(originalFileName).getFileName().toString();
+        String standardContentType = standardizeContentType(contentType, baseName);
+        String fileName = UUID.randomUUID().toString() + "_" + baseName;
+        SizeLimitedInputStream limited = new SizeLimitedInputStream(content, limit);
+        String filePath;
+        try {
+            filePath = fileStorageService.store(limited, contentLength, fileName, contentType);
+        } catch (Exception ex) {
+            if (limited.isLimitExceeded()) {
+                logger.error("Streamed file exceeds limit of {} bytes: {}", limit, title);
+                throw new RuntimeException("文件大小不能超过" + formatUploadLimit(limit));
+            }
+            logger.error("Failed to store streamed file: {}", title, ex);
+            throw new RuntimeException("Could not store file. Please try again!", ex);
+        }
+
+        Document document = new Document();
+        document.setTitle(title);
+        document.setDescription(description);
+        document.setFileName(fileName);
+        document.setFilePath(filePath);
+        document.setFileSize(limited.getCount());
+        document.setFileType(standardContentType);
+        document.setTags(tags);
+        document.setCompanyInfo(companyInfo);
+        document.setBrandInfo(brandInfo);
+        document.setProductCategory(productCategory);
+        document.setDocumentType(documentType);
+        document.setLanguage(language);
+        document.setVersion(version);
+        document.setStatus(DocumentStatus.DRAFT);
+        document.setCreator(currentUser);
+
+        Document savedDocument;
+        try {
+            savedDocument = documentRepository.save(document);
+        } catch (RuntimeException ex) {
+            deleteQuietly(fileName, filePath);
+            throw ex;
+        }
+        logger.info("Streamed document saved to database with ID: {}, {} bytes", savedDocument.getId(), limited.getCount());
+        return convertToDTO(savedDocument);
+    }
+
+    private void deleteQuietly(String fileName, String filePath) {
+        try {
+            fileStorageService.delete(fileName, filePath);
+        } catch (IOException ex) {
+            logger.warn("Could not delete stored file: {}", fileName, ex);
+        }
+    }
+
+    /**
+     * Reject a file larger than the subscription of the user allows
+     */
+    private void checkUploadSize(User user, long size) {
+        long limit = getUploadLimitBySubscription(user.getSubscriptionType());
+        if (size > limit) {
+            logger.error("File size {} exceeds limit {} of user {}", size, limit, user.getUsername());
+            throw new RuntimeException("文件大小不能超过" + formatUploadLimit(limit));
+        }
+    }
+
+    private long getUploadLimitBySubscription(String subscriptionType) {
+        // 根据订阅类型返回单个文件的上传大小限制（单位：字节）
+        return switch (subscriptionType == null ? "FREE" : subscriptionType) {
+            case "BASIC" -> 500L * 1024 * 1024;          // 500MB
+            case "PRO" -> 2L * 1024 * 1024 * 1024;       // 2GB
+            case "ENTERPRISE" -> 20L * 1024 * 1024 * 1024; // 20GB
+            default -> 50L * 1024 * 1024;                // 50MB for free users
+        };
+    }
+
+    private static String formatUploadLimit(long limit) {
+        long megabytes = limit / (1024 * 1024);
+        return megabytes >= 1024 && megabytes % 1024 == 0 ? (megabytes / 1024) + "GB" : megabytes + "MB";
+    }
+
     @Override
     public DocumentDTO getDocument(Long id) {
         logger.debug("Fetching document with ID: {}", id);
@@ -254,43 +377,103 @@ public class DocumentServiceImpl implements DocumentService {
     @Transactional
     public void deleteDocument(Long id) {
         logger.debug("Deleting document with ID: {}", id);
+        // Only the rows of the document and its translations are flagged, StorageGarbageCollector
+        // removes the files and the rows later
+        if (documentRepository.softDeleteByIdIn(List.of(id)) == 0) {
+            logger.error("Document not found with ID: {}", id);
+            throw new RuntimeException("Document not found");
+        }
+        logger.info("Document marked as deleted: {}", id);
+    }
+
+    @Override
+    @Transactional
+    public int deleteDocuments(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+        Set<Long> uniqueIds = new LinkedHashSet<>(ids);
+        if (uniqueIds.size() > bulkDeleteMaxIds) {
+            logger.error("Bulk delete of {} documents exceeds the limit of {}", uniqueIds.size(), bulkDeleteMaxIds);
+            throw new RuntimeException("一次最多删除 " + bulkDeleteMaxIds + " 个文档");
+        }
+        logger.debug("Bulk deleting {} documents", uniqueIds.size());
+
+        int deleted = documentRepository.softDeleteByIdIn(uniqueIds);
+        logger.info("{} documents marked as deleted, translations of deleted masters included", deleted);
+        return deleted;
+    }
+
+    @Override
+    @Transactional
+    public DocumentDTO replaceDocumentFile(Long id, MultipartFile file) {
+        logger.debug("Replacing file of document with ID: {}", id);
         Document document = documentRepository.findById(id)
                 .orElseThrow(() -> {
                     logger.error("Document not found with ID: {}", id);
                     return new RuntimeException("Document not found");
                 });
 
+        if (Boolean.FALSE.equals(document.getIsMaster())) {
+            logger.error("Document {} is a translation, only master files can be replaced", id);
+            throw new RuntimeException("只能更新主文档的文件");
+        }
+        checkUploadSize((User) userService.loadUserByUsername(userService.getCurrentUser().getUsername()), file.getSize());
+
+        String oldFileName = document.getFileName();
+        String oldFilePath = document.getFilePath();
         try {
-            if ("oss".equals(storageType)) {
-                // Delete from Aliyun OSS if it's a public file
-                if(document.getStatus().equals(DocumentStatus.PUBLISHED)){
-                    ossService.deletePublicFile(document.getFileName());
-                }
-                // Delete from Aliyun OSS
-                ossService.deleteFile(document.getFileName());
-                logger.debug("File deleted from OSS: {}", document.getFileName());
-            } else {
-                // Delete from local storage
-                Path filePath = Paths.get(document.getFilePath());
-                logger.debug("Deleting file at: {}", filePath);
-                boolean deleted = Files.deleteIfExists(filePath);
-                if (deleted) {
-                    logger.debug("File deleted successfully");
-                } else {
-                    logger.warn("File not found at: {}", filePath);
-                }
+            String fileName = UUID.randomUUID().toString() + "_" + file.getOriginalFilename();
+            String filePath = fileStorageService.store(file, fileName);
+            boolean publicCopy = "oss".equals(storageType) && DocumentStatus.PUBLISHED.equals(document.getStatus());
+            // The old file stays until the new one is committed, storage drops the new one on rollback
+            deleteAfterCommit(oldFileName, oldFilePath, publicCopy);
+
+            document.setFileName(fileName);
+            document.setFilePath(filePath);
+            document.setFileSize(file.getSize());
+            document.setFileType(standardizeContentType(file.getContentType(), file.getOriginalFilename()));
+            document.setCharacterCount(null);
+
+            if (publicCopy) {
+                // Keep the public copy in step with the new file
+                document.setFilePath(ossService.copyFile(fileName, publicBucketName, fileName));
             }
         } catch (IOException ex) {
-            logger.error("Could not delete file: {}", document.getFilePath(), ex);
-            throw new RuntimeException("Could not delete file", ex);
+            logger.error("Could not replace file of document: {}", id, ex);
+            throw new RuntimeException("Could not store file. Please try again!", ex);
         }
 
-        documentRepository.delete(document);
-        logger.info("Document deleted from database: {}", id);
+        Document updatedDocument = documentRepository.save(document);
+        logger.info("File of document {} replaced", id);
+
+        // Flag every translation as outdated and refresh it once the new file is committed
+        List<TranslationJob> refreshJobs = new ArrayList<>();
+        for (Document translation : documentRepository.findByMasterDocumentId(id)) {
+            translation.setStatus(DocumentStatus.NEEDS_UPDATE);
+            documentRepository.save(translation);
+
+            TranslationJob job = new TranslationJob();
+            job.setDocumentId(translation.getId());
+            job.setMasterDocumentId(id);
+            job.setUserId(translation.getCreator().getId());
+            job.setSourceLang(translationJobRepository.findTopByDocumentIdOrderByIdDesc(translation.getId())
+                .map(TranslationJob::getSourceLang)
+                .orElse(null));
+            job.setTargetLang(translation.getLanguage());
+            refreshJobs.add(job);
+        }
+        if (!refreshJobs.isEmpty()) {
+            translationBatchRepository.insertJobs(refreshJobs);
+            logger.info("Queueing {} translation refresh jobs for document {}", refreshJobs.size(), id);
+            submitAfterCommit(refreshJobs.stream().map(TranslationJob::getId).toList());
+        }
+
+        return convertToDTO(updatedDocument);
     }
 
     @Override
-    public Resource downloadDocument(Long id) {
+    public void downloadDocument(Long id, HttpServletRequest request, HttpServletResponse response) throws IOException {
         logger.debug("Preparing download for document with ID: {}", id);
         Document document = documentRepository.findById(id)
                 .orElseThrow(() -> {
@@ -298,26 +481,114 @@ public class DocumentServiceImpl implements DocumentService {
                     return new RuntimeException("Document not found");
                 });
 
+        if (document.getFileName() == null) {
+            logger.error("Document {} has no file yet", id);
+            throw new RuntimeException("File not found");
+        }
+
+        // OSS objects are served from the local cache unless they are too large for it
+        Path localFile = "oss".equals(storageType)
+                ? ossCacheService.getFile(document.getFileName())
+                : Paths.get(document.getFilePath());
+        long length;
+        if (localFile != null) {
+            if (!Files.isReadable(localFile)) {
+                logger.error("File not found at: {}", localFile);
+                throw new RuntimeException("File not found");
+            }
+            length = Files.size(localFile);
+        } else {
+            length = document.getFileSize() != null ? document.getFileSize() : ossService.getObjectLength(document.getFileName());
+        }
+
+        // Stored files are never rewritten, a new file always gets a new name
+        String etag = "\"" + HashUtils.sha256Hex(document.getFileName()).substring(0, 32) + "\"";
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setContentType(MediaTypeFactory.getMediaType(document.getFileName())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(document.getFileName(), StandardCharsets.UTF_8).build().toString());
+
+        long start = 0;
+        long end = length - 1;
+        HttpRange range = requestedRange(request, etag);
+        if (range != null) {
+            try {
+                start = range.getRangeStart(length);
+                end = range.getRangeEnd(length);
+            } catch (IllegalArgumentException ex) {
+                logger.debug("Unsatisfiable range {} for document {} of {} bytes", request.getHeader(HttpHeaders.RANGE), id, length);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count <= 0) {
+            return;
+        }
+
+        if (localFile != null) {
+            sendLocalFile(localFile, start, count, request, response);
+        } else {
+            try (InputStream in = range == null
+                    ? ossService.downloadFile(document.getFileName()).getInputStream()
+                    : ossService.openRange(document.getFileName(), start, end)) {
+                in.transferTo(response.getOutputStream());
+            }
+        }
+        logger.debug("Sent bytes {}-{} of document {}", start, end, id);
+    }
+
+    /**
+     * The single byte range a download asks for, or null for the whole file. Several ranges are
+     * answered with the whole file, as is a range whose If-Range no longer matches.
+     */
+    private static HttpRange requestedRange(HttpServletRequest request, String etag) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(etag)) {
+            return null;
+        }
         try {
-            if ("oss".equals(storageType)) {
-                // Download from Aliyun OSS
-                return ossService.downloadFile(document.getFileName());
-            } else {
-                // Download from local storage
-                Path filePath = Paths.get(document.getFilePath());
-                logger.debug("Loading file from: {}", filePath);
-                Resource resource = new org.springframework.core.io.UrlResource(filePath.toUri());
-                if (resource.exists()) {
-                    logger.debug("File found and ready for download");
-                    return resource;
-                } else {
-                    logger.error("File not found at: {}", filePath);
-                    throw new RuntimeException("File not found");
+            List<HttpRange> ranges = HttpRange.parseRanges(header);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Send part of a local file. Tomcat sends it with sendfile once the handler returns, without
+     * copying it through the JVM. Otherwise the file channel transfers it to the response.
+     */
+    private static void sendLocalFile(Path file, long start, long count, HttpServletRequest request,
+                                      HttpServletResponse response) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    throw new IOException("File ended before the requested range: " + file);
                 }
+                position += sent;
+                remaining -= sent;
             }
-        } catch (IOException ex) {
-            logger.error("Error downloading file: {}", document.getFilePath(), ex);
-            throw new RuntimeException("File not found", ex);
         }
     }
 
@@ -329,16 +600,23 @@ public class DocumentServiceImpl implements DocumentService {
                     logger.error("Document not found with ID: {}", id);
                     return new RuntimeException("Document not found");
                 });
-        
+        return previewUrl(document);
+    }
+
+    private String previewUrl(Document document) {
         if ("oss".equals(storageType)) {
-            // Generate a signed URL for OSS
+            if (document.getFileName() == null) {
+                // A translation that has not finished yet
+                return null;
+            }
+            // Signed URLs are cached by OssService, a list page does not sign every row again
             URL signedUrl = ossService.generateSignedUrl(document.getFileName(), urlExpiration);
-            logger.debug("Signed URL generated for OSS: {}", signedUrl);
+            logger.trace("Signed URL for OSS: {}", signedUrl);
             return signedUrl.toString();
         } else {
             // Return a local URL
-            String previewUrl = "/api/v1/documents/" + id + "/preview";
-            logger.debug("Preview URL generated: {}", previewUrl);
+            String previewUrl = "/api/v1/documents/" + document.getId() + "/preview";
+            logger.trace("Preview URL generated: {}", previewUrl);
             return previewUrl;
         }
     }
@@ -411,6 +689,7 @@ public class DocumentServiceImpl implements DocumentService {
             if ("oss".equals(storageType)) {
                 // Delete file from public bucket
                 ossService.deletePublicFile(document.getFileName());
+                ossCacheService.invalidate(document.getFileName());
                 logger.debug("File deleted from public bucket: {}", document.getFileName());
                 
                 // Update document status to DRAFT
@@ -547,51 +826,86 @@ public class DocumentServiceImpl implements DocumentService {
     }
 
     @Override
-    public DocumentDTO translateDocument(Long id, String sourceLang, String targetLang) {
-        logger.info("Translating document {} from {} to {}", id, sourceLang, targetLang);
+    @Transactional
+    public TranslationJobDTO translateDocument(Long id, String sourceLang, String targetLang) {
+        return translateDocument(id, sourceLang, List.of(targetLang)).get(0);
+    }
+
+    @Override
+    @Transactional
+    public List<TranslationJobDTO> translateDocument(Long id, String sourceLang, List<String> targetLangs) {
+        logger.info("Translating document {} from {} to {}", id, sourceLang, targetLangs);
+
+        if (targetLangs == null || targetLangs.isEmpty()) {
+            logger.error("No target language given for document: {}", id);
+            throw new RuntimeException("请指定目标语言");
+        }
+        List<String> languages = targetLangs.stream().distinct().toList();
         
         // Get the original document
         Document originalDocument = documentRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Document not found"));
+
+        if (!TRANSLATABLE_FILE_TYPES.contains(originalDocument.getFileType())) {
+            logger.error("Unsupported file type for translation: {}", originalDocument.getFileType());
+            throw new RuntimeException("只支持Word、PDF和文本文档翻译");
+        }
         
         User currentUser =   (User) userService.loadUserByUsername(
             userService.getCurrentUser().getUsername());
+        translationQuotaService.checkAvailable(currentUser.getId());
 
-        // Create a new document for the translation
-        Document translatedDocument = new Document();
-        translatedDocument.setTitle(originalDocument.getTitle() + " (" + targetLang + ")");
-        translatedDocument.setDescription(originalDocument.getDescription());
-        translatedDocument.setFileName(originalDocument.getFileName());
-        translatedDocument.setFileSize(originalDocument.getFileSize());
-        translatedDocument.setFileType(originalDocument.getFileType());
-        List<String> tags = originalDocument.getTags();
-        translatedDocument.setTags(tags);
-        translatedDocument.setStatus(DocumentStatus.DRAFT);
-        translatedDocument.setIsMaster(false);
-        translatedDocument.setMasterDocumentId(id);
-        translatedDocument.setLanguage(targetLang);
-        
-        // Copy additional metadata
-        translatedDocument.setCompanyInfo(originalDocument.getCompanyInfo());
-        translatedDocument.setBrandInfo(originalDocument.getBrandInfo());
-        translatedDocument.setProductCategory(originalDocument.getProductCategory());
-        translatedDocument.setDocumentType(originalDocument.getDocumentType());
-        translatedDocument.setVersion(originalDocument.getVersion());
-
-        translatedDocument.setCreator(currentUser);
-        
-        // Save the translated document
-        translatedDocument = documentRepository.save(translatedDocument);
-        
-        // TODO: Implement actual translation logic here
-        // This would involve:
-        // 1. Extracting text from the original document
-        // 2. Translating the text using a translation service
-        // 3. Creating a new document with the translated content
-        // 4. Uploading the translated document to OSS
-        
-        logger.info("Translation document created: {}", translatedDocument.getId());
-        return convertToDTO(translatedDocument);
+        // Create one document per language for the translations
+        List<Document> translatedDocuments = new ArrayList<>(languages.size());
+        for (String targetLang : languages) {
+            Document translatedDocument = new Document();
+            translatedDocument.setTitle(originalDocument.getTitle() + " (" + targetLang + ")");
+            translatedDocument.setDescription(originalDocument.getDescription());
+            // The file fields are filled in by the translation job once the translated file is stored
+            translatedDocument.setFileType(originalDocument.getFileType());
+            List<String> tags = originalDocument.getTags();
+            translatedDocument.setTags(tags == null ? null : new ArrayList<>(tags));
+            translatedDocument.setStatus(DocumentStatus.IN_PROGRESS);
+            translatedDocument.setIsMaster(false);
+            translatedDocument.setMasterDocumentId(id);
+            translatedDocument.setLanguage(targetLang);
+
+            // Copy additional metadata
+            translatedDocument.setCompanyInfo(originalDocument.getCompanyInfo());
+            translatedDocument.setBrandInfo(originalDocument.getBrandInfo());
+            translatedDocument.setProductCategory(originalDocument.getProductCategory());
+            translatedDocument.setDocumentType(originalDocument.getDocumentType());
+            translatedDocument.setVersion(originalDocument.getVersion());
+
+            translatedDocument.setCreator(currentUser);
+            translatedDocuments.add(translatedDocument);
+        }
+        
+        // Save the translated documents, one JDBC batch instead of an INSERT per language
+        translationBatchRepository.insertDocuments(translatedDocuments);
+        logger.info("{} translation documents created for document {}", translatedDocuments.size(), id);
+
+        // Queue the actual translation, the worker moves each document to REVIEWING when done
+        List<TranslationJob> jobs = new ArrayList<>(translatedDocuments.size());
+        for (Document translatedDocument : translatedDocuments) {
+            TranslationJob job = new TranslationJob();
+            job.setDocumentId(translatedDocument.getId());
+            job.setMasterDocumentId(id);
+            job.setUserId(currentUser.getId());
+            job.setSourceLang(sourceLang);
+            job.setTargetLang(translatedDocument.getLanguage());
+            jobs.add(job);
+        }
+        translationBatchRepository.insertJobs(jobs);
+        List<Long> jobIds = jobs.stream()
+            .map(TranslationJob::getId)
+            .toList();
+        submitAfterCommit(jobIds);
+
+        logger.info("Translation jobs queued: {}", jobIds);
+        return jobIds.stream()
+            .map(translationJobService::getJob)
+            .toList();
     }
 
     @Override
@@ -625,6 +939,38 @@ public class DocumentServiceImpl implements DocumentService {
         return userDTO;
     }
 
+    /**
+     * Hand jobs to the worker pool once the rows they read are committed
+     */
+    private void submitAfterCommit(List<Long> jobIds) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                translationJobService.submit(jobIds);
+            }
+        });
+    }
+
+    /**
+     * Delete a stored file, and its public copy, once the transaction replacing it is committed
+     */
+    private void deleteAfterCommit(String fileName, String filePath, boolean publicCopy) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                if (publicCopy) {
+                    try {
+                        ossService.deletePublicFile(fileName);
+                    } catch (Exception ex) {
+                        logger.warn("Could not delete public copy of file: {}", fileName, ex);
+                    }
+                }
+                deleteQuietly(fileName, filePath);
+                logger.debug("File {} removed", fileName);
+            }
+        });
+    }
+
     private DocumentDTO convertToDTO(Document document) {
         logger.trace("Converting Document to DTO: {}", document.getId());
         DocumentDTO dto = new DocumentDTO();
@@ -640,7 +986,7 @@ public class DocumentServiceImpl implements DocumentService {
         dto.setUpdatedAt(document.getUpdatedAt());
         dto.setUploadTime(document.getCreatedAt());
         dto.setDownloadUrl("/api/v1/documents/" + document.getId() + "/download");
-        dto.setPreviewUrl(getPreviewUrl(document.getId()));
+        dto.setPreviewUrl(previewUrl(document));
         dto.setStatus(document.getStatus().name());
         
         // Master document fields
@@ -0,0 +1,112 @@
+package com.filemanager.service.impl;
+
+import com.filemanager.service.FileStorageService;
+import com.filemanager.service.OssCacheService;
+import com.filemanager.service.OssService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+@Service
+public class FileStorageServiceImpl implements FileStorageService {
+    private static final Logger logger = LoggerFactory.getLogger(FileStorageServiceImpl.class);
+
+    @Autowired
+    private OssService ossService;
+    @Autowired
+    private OssCacheService ossCacheService;
+    @Autowired
+    private LocalBlobStore localBlobStore;
+    @Value("${file.storage-type}")
+    private String storageType;
+
+    @Override
+    public String store(MultipartFile file, String fileName) throws IOException {
+        String filePath;
+        if ("oss".equals(storageType)) {
+            // Upload to Aliyun OSS
+            filePath = ossService.uploadFile(file, fileName);
+            deleteOnRollback(fileName);
+            logger.debug("File uploaded to OSS: {}", filePath);
+        } else {
+            // Upload to the local content-addressed store
+            // Multipart uploads are on disk already, they are hashed there before anything is copied
+            filePath = localBlobStore.store(file::getInputStream).toString();
+            logger.debug("File {} saved as: {}", fileName, filePath);
+        }
+        return filePath;
+    }
+
+    @Override
+    public String store(Path file, String fileName, String contentType) throws IOException {
+        String filePath;
+        if ("oss".equals(storageType)) {
+            filePath = ossService.uploadFile(file, fileName, contentType);
+            deleteOnRollback(fileName);
+            logger.debug("File uploaded to OSS: {}", filePath);
+        } else {
+            filePath = localBlobStore.store(file).toString();
+            logger.debug("File {} saved as: {}", fileName, filePath);
+        }
+        return filePath;
+    }
+
+    @Override
+    public String store(InputStream content, long contentLength, String fileName, String contentType) throws IOException {
+        if ("oss".equals(storageType)) {
+            String filePath = ossService.uploadFile(content, contentLength, fileName, contentType);
+            deleteOnRollback(fileName);
+            logger.debug("File streamed to OSS: {}", filePath);
+            return filePath;
+        }
+        String filePath = localBlobStore.store(content).toString();
+        logger.debug("File {} streamed to: {}", fileName, filePath);
+        return filePath;
+    }
+
+    @Override
+    public void delete(String fileName, String filePath) throws IOException {
+        if ("oss".equals(storageType)) {
+            ossService.deleteFile(fileName);
+            ossCacheService.invalidate(fileName);
+        } else if (localBlobStore.owns(filePath)) {
+            localBlobStore.release(filePath);
+        } else if (filePath != null) {
+            // Stored before the content-addressed store, the file is not shared
+            Files.deleteIfExists(Paths.get(filePath));
+        }
+        logger.debug("File {} deleted from storage", fileName);
+    }
+
+    // Local blobs give their reference back themselves when the transaction storing them rolls back
+    private void deleteOnRollback(String fileName) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_ROLLED_BACK) {
+                    return;
+                }
+                try {
+                    ossService.deleteFile(fileName);
+                    logger.debug("File {} deleted from OSS after rollback", fileName);
+                } catch (Exception ex) {
+                    logger.warn("Could not delete file {} from OSS after rollback", fileName, ex);
+                }
+            }
+        });
+    }
+}
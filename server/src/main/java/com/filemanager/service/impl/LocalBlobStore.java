@@ -0,0 +1,228 @@
+package com.filemanager.service.impl;
+
+import com.filemanager.repository.StorageBlobRepository;
+import com.filemanager.util.HashUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+/**
+ * Content-addressed store behind local file storage. Every file is kept once under the SHA-256
+ * of its bytes and reference counted in storage_blobs, so storing content that is already there
+ * only adds a reference. Files are laid out as {@code blobs/ab/abcdef...} below the upload dir.
+ */
+@Component
+public class LocalBlobStore {
+    private static final Logger logger = LoggerFactory.getLogger(LocalBlobStore.class);
+
+    private static final int LOCK_STRIPES = 64;
+
+    @Autowired
+    private StorageBlobRepository storageBlobRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Value("${file.upload-dir}")
+    private String uploadDir;
+
+    // Placing a blob and counting the reference, or dropping the last reference and deleting the
+    // file, must not interleave for the same digest
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public LocalBlobStore() {
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Store a local file, which is left in place
+     *
+     * @return The path of the blob
+     */
+    public Path store(Path file) throws IOException {
+        return store(() -> Files.newInputStream(file));
+    }
+
+    /**
+     * Store content that is already on disk and can be read more than once, such as an uploaded
+     * file. It is hashed where it is and only copied into the store if no blob with the same
+     * content exists yet.
+     *
+     * @return The path of the blob
+     */
+    public Path store(ContentSource source) throws IOException {
+        MessageDigest md = HashUtils.sha256();
+        long size;
+        try (InputStream in = source.open()) {
+            size = new DigestInputStream(in, md).transferTo(OutputStream.nullOutputStream());
+        }
+        String digest = HexFormat.of().formatHex(md.digest());
+        if (Files.exists(blobPath(digest))) {
+            Path blob = place(digest, size, null);
+            if (blob != null) {
+                logger.debug("Blob {} exists, added a reference without copying", digest);
+                return blob;
+            }
+        }
+
+        Path temp = Files.createTempFile(createDirectories(tempDir()), "upload-", ".tmp");
+        try {
+            try (InputStream in = source.open()) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return place(digest, size, temp);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Store a stream that can only be read once. It is hashed while spooled to a temporary file,
+     * since the digest is only known at its end, and the spooled copy is dropped if a blob with
+     * the same content exists already.
+     *
+     * @param content The content, read to its end but not closed
+     * @return The path of the blob
+     */
+    public Path store(InputStream content) throws IOException {
+        Path temp = Files.createTempFile(createDirectories(tempDir()), "upload-", ".tmp");
+        try {
+            MessageDigest md = HashUtils.sha256();
+            long size;
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                size = new DigestInputStream(content, md).transferTo(out);
+            }
+            return place(digest(md), size, temp);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Whether the path is a blob of this store, rather than a file stored before it existed
+     */
+    public boolean owns(String filePath) {
+        return filePath != null && Paths.get(filePath).toAbsolutePath().normalize().startsWith(blobsDir());
+    }
+
+    /**
+     * Drop one reference to a blob and delete its file once no references are left
+     */
+    public void release(String filePath) throws IOException {
+        Path blob = Paths.get(filePath);
+        String digest = blob.getFileName().toString();
+        synchronized (lockFor(digest)) {
+            Boolean unreferenced = newTransaction().execute(status -> {
+                if (storageBlobRepository.release(digest) == 0) {
+                    logger.warn("Blob {} released without being referenced", digest);
+                }
+                return storageBlobRepository.deleteUnreferenced(digest) > 0;
+            });
+            if (Boolean.TRUE.equals(unreferenced)) {
+                Files.deleteIfExists(blob);
+                logger.debug("Blob {} has no references left and was deleted", digest);
+            }
+        }
+    }
+
+    /**
+     * Move the copy into place unless the blob exists, and count the reference. Only this step
+     * holds the lock of the digest.
+     *
+     * @param copy The content in the temporary dir, or null if the blob is known to exist
+     */
+    private Path place(String digest, long size, Path copy) throws IOException {
+        synchronized (lockFor(digest)) {
+            Path blob = blobPath(digest);
+            if (!Files.exists(blob)) {
+                if (copy == null) {
+                    // Released since the caller looked, it copies the content after all
+                    return null;
+                }
+                createDirectories(blob.getParent());
+                Files.move(copy, blob, StandardCopyOption.ATOMIC_MOVE);
+            } else if (copy != null) {
+                logger.debug("Blob {} was stored concurrently, dropping the copy", digest);
+            }
+            acquire(digest, size, blob);
+            return blob;
+        }
+    }
+
+    private static String digest(MessageDigest md) {
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    private void acquire(String digest, long size, Path blob) {
+        newTransaction().executeWithoutResult(status -> storageBlobRepository.acquire(digest, size));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // The reference is committed at once, a caller rolling back never records the blob and gives it back
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_ROLLED_BACK) {
+                        return;
+                    }
+                    try {
+                        release(blob.toString());
+                    } catch (IOException ex) {
+                        logger.warn("Could not release blob {} after rollback", digest, ex);
+                    }
+                }
+            });
+        }
+    }
+
+    // Reference counts follow the files on disk, placing a blob and counting it commit together
+    private TransactionTemplate newTransaction() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+
+    private Object lockFor(String digest) {
+        return locks[Math.floorMod(digest.hashCode(), LOCK_STRIPES)];
+    }
+
+    private Path blobsDir() {
+        return Paths.get(uploadDir).resolve("blobs").toAbsolutePath().normalize();
+    }
+
+    private Path tempDir() {
+        return blobsDir().resolve("tmp");
+    }
+
+    private Path blobPath(String digest) {
+        return blobsDir().resolve(digest.substring(0, 2)).resolve(digest);
+    }
+
+    private static Path createDirectories(Path dir) throws IOException {
+        return Files.createDirectories(dir);
+    }
+
+    /**
+     * Content that can be opened more than once
+     */
+    @FunctionalInterface
+    public interface ContentSource {
+        InputStream open() throws IOException;
+    }
+}
@@ -0,0 +1,86 @@
+package com.filemanager.service.impl;
+
+import com.filemanager.model.dto.TranslationUsageDTO;
+import com.filemanager.service.TranslationProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Offline engine for load tests and local development. A translation is the source text
+ * prefixed with the target language, so output is deterministic, and every call waits a fixed
+ * latency plus the time its characters take at the configured throughput. It only accepts work
+ * when {@code translate.local.enabled} is set, so it can never stand in for a real engine.
+ */
+@Service
+public class LocalTranslationProvider implements TranslationProvider {
+
+    @Value("${translate.local.enabled:false}")
+    private boolean enabled;
+
+    @Value("${translate.local.latency-ms:50}")
+    private long latencyMillis;
+
+    // 0 means no throughput limit
+    @Value("${translate.local.characters-per-second:0}")
+    private long charactersPerSecond;
+
+    @Value("${translate.local.max-batch-size:50}")
+    private int maxBatchSize;
+
+    private final AtomicLong charactersTranslated = new AtomicLong();
+
+    @Override
+    public String getName() {
+        return "local";
+    }
+
+    @Override
+    public boolean supports(String sourceLang, String targetLang) {
+        return enabled;
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    @Override
+    public int getMaxBatchBytes() {
+        return 120 * 1024;
+    }
+
+    @Override
+    public boolean isCacheable() {
+        // Never let placeholder output into the translation memory
+        return false;
+    }
+
+    @Override
+    public List<String> translate(List<String> texts, String sourceLang, String targetLang) throws InterruptedException {
+        long characters = texts.stream().mapToInt(String::length).sum();
+        long delayNanos = TimeUnit.MILLISECONDS.toNanos(latencyMillis);
+        if (charactersPerSecond > 0) {
+            delayNanos += characters * 1_000_000_000L / charactersPerSecond;
+        }
+        TimeUnit.NANOSECONDS.sleep(delayNanos);
+
+        String prefix = "[" + targetLang.toUpperCase(Locale.ROOT) + "] ";
+        List<String> results = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            results.add(prefix + text);
+        }
+        charactersTranslated.addAndGet(characters);
+        return results;
+    }
+
+    @Override
+    public TranslationUsageDTO getUsage() {
+        return new TranslationUsageDTO(getName(), charactersTranslated.get(), null, false);
+    }
+}
@@ -0,0 +1,322 @@
+package com.filemanager.service.impl;
+
+import com.filemanager.service.OssCacheService;
+import com.filemanager.service.OssService;
+import com.filemanager.util.HashUtils;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
+
+/**
+ * Read-through disk cache in front of the private OSS bucket. Objects are kept whole under
+ * {@code aliyun.oss.cache.dir}, evicted least recently used first once their total size exceeds
+ * {@code aliyun.oss.cache.max-bytes}. The index lives in memory and is rebuilt from the cache
+ * directory on startup, ordered by modification time. Pinned files are neither evicted nor
+ * deleted until they are unpinned.
+ */
+@Service
+public class OssCacheServiceImpl implements OssCacheService {
+    private static final Logger logger = LoggerFactory.getLogger(OssCacheServiceImpl.class);
+
+    // Cache files are named <sha256 of the object name>_<random suffix><extension>
+    private static final int KEY_LENGTH = 64;
+
+    @Autowired
+    private OssService ossService;
+    @Value("${aliyun.oss.cache.enabled:true}")
+    private boolean enabled;
+    @Value("${aliyun.oss.cache.dir:${java.io.tmpdir}/oss-cache}")
+    private String cacheDir;
+    @Value("${aliyun.oss.cache.max-bytes:10737418240}")
+    private long maxBytes;
+    @Value("${aliyun.oss.cache.max-object-bytes:1073741824}")
+    private long maxObjectBytes;
+    // Evicted files may still be about to be sent, sendfile only opens them after the request handler returned
+    @Value("${aliyun.oss.cache.delete-grace-ms:60000}")
+    private long deleteGraceMillis;
+
+    // Access ordered, so iteration starts at the least recently used object. Guarded by itself.
+    private final LinkedHashMap<String, CachedObject> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    // Pin counts and pinned files dropped from the index meanwhile, guarded by the entries lock
+    private final Map<Path, Integer> pins = new HashMap<>();
+    private final Set<Path> orphaned = new HashSet<>();
+    private final Map<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<PendingDelete> pendingDeletes = new ConcurrentLinkedQueue<>();
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path dir = Files.createDirectories(Paths.get(cacheDir));
+        Files.createDirectories(tempDir());
+        try (Stream<Path> temp = Files.list(tempDir())) {
+            for (Path file : (Iterable<Path>) temp::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(dir)) {
+            files = listing.filter(Files::isRegularFile)
+                    .filter(file -> file.getFileName().toString().length() > KEY_LENGTH)
+                    .sorted(Comparator.comparing(OssCacheServiceImpl::lastModified))
+                    .toList();
+        }
+        synchronized (entries) {
+            for (Path file : files) {
+                String key = file.getFileName().toString().substring(0, KEY_LENGTH);
+                long size = Files.size(file);
+                CachedObject replaced = entries.put(key, new CachedObject(file, size));
+                totalBytes += size;
+                if (replaced != null) {
+                    totalBytes -= replaced.size();
+                    Files.deleteIfExists(replaced.path());
+                }
+            }
+            evict();
+        }
+        logger.info("OSS cache at {} holds {} objects, {} bytes", dir, entries.size(), totalBytes);
+    }
+
+    @Override
+    public Path getFile(String objectName) throws IOException {
+        if (!enabled) {
+            return null;
+        }
+        String key = HashUtils.sha256Hex(objectName);
+        Path cached = lookup(key);
+        if (cached != null) {
+            logger.debug("OSS cache hit: {}", objectName);
+            return cached;
+        }
+
+        CompletableFuture<Path> flight = new CompletableFuture<>();
+        CompletableFuture<Path> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            logger.debug("OSS cache miss for {}, waiting for the running download", objectName);
+            return await(running);
+        }
+        try {
+            // Another download may have finished between the lookup and registering this one
+            Path path = lookup(key);
+            if (path == null) {
+                path = fetch(objectName, key, flight);
+            }
+            flight.complete(path);
+            return path;
+        } catch (IOException | RuntimeException ex) {
+            flight.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    @Override
+    public Path pinFile(String objectName) throws IOException {
+        Path path = getFile(objectName);
+        if (path == null) {
+            return null;
+        }
+        synchronized (entries) {
+            // The file may have been swept since it was looked up, then it is fetched again
+            if (Files.exists(path)) {
+                pins.merge(path, 1, Integer::sum);
+                return path;
+            }
+        }
+        return pinFile(objectName);
+    }
+
+    @Override
+    public void unpinFile(Path file) {
+        if (file == null) {
+            return;
+        }
+        synchronized (entries) {
+            Integer count = pins.computeIfPresent(file, (path, pinned) -> pinned > 1 ? pinned - 1 : null);
+            if (count == null && orphaned.remove(file)) {
+                scheduleDelete(file);
+            }
+        }
+    }
+
+    @Override
+    public void invalidate(String objectName) {
+        if (!enabled || objectName == null) {
+            return;
+        }
+        String key = HashUtils.sha256Hex(objectName);
+        synchronized (entries) {
+            // A download still running for the old object is not added to the index
+            inFlight.remove(key);
+            CachedObject removed = entries.remove(key);
+            if (removed != null) {
+                totalBytes -= removed.size();
+                scheduleDelete(removed.path());
+                logger.debug("OSS cache entry for {} invalidated", objectName);
+            }
+        }
+    }
+
+    /**
+     * Delete evicted and invalidated files once their grace period has passed
+     */
+    @Scheduled(fixedDelayString = "${aliyun.oss.cache.sweep-interval-ms:30000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        Iterator<PendingDelete> it = pendingDeletes.iterator();
+        while (it.hasNext()) {
+            PendingDelete pending = it.next();
+            if (pending.dueAt() > now) {
+                continue;
+            }
+            it.remove();
+            synchronized (entries) {
+                if (pins.containsKey(pending.path())) {
+                    // Pinned after it was dropped, it goes once unpinned
+                    orphaned.add(pending.path());
+                    continue;
+                }
+                try {
+                    Files.deleteIfExists(pending.path());
+                } catch (IOException ex) {
+                    logger.warn("Could not delete cached file: {}", pending.path(), ex);
+                }
+            }
+        }
+    }
+
+    private Path lookup(String key) {
+        synchronized (entries) {
+            CachedObject entry = entries.get(key);
+            return entry != null ? entry.path() : null;
+        }
+    }
+
+    private Path fetch(String objectName, String key, CompletableFuture<Path> flight) throws IOException {
+        Resource resource = ossService.downloadFile(objectName);
+        long length = resource.contentLength();
+        if (length > Math.min(maxObjectBytes, maxBytes)) {
+            // Closing before the end aborts the request, the object is not downloaded
+            resource.getInputStream().close();
+            logger.debug("OSS object {} of {} bytes is too large to cache", objectName, length);
+            return null;
+        }
+
+        Path temp = Files.createTempFile(tempDir(), "fetch-", ".tmp");
+        try {
+            try (InputStream in = resource.getInputStream()) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Path path = Paths.get(cacheDir).resolve(key + "_" + UUID.randomUUID().toString().substring(0, 8) + extension(objectName));
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+            long size = Files.size(path);
+            synchronized (entries) {
+                if (inFlight.get(key) == flight) {
+                    entries.put(key, new CachedObject(path, size));
+                    totalBytes += size;
+                    evict();
+                } else {
+                    // Invalidated while downloading, the caller still gets the copy it asked for
+                    scheduleDelete(path);
+                }
+            }
+            logger.debug("OSS object {} cached, {} bytes", objectName, size);
+            return path;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Called with the entries lock held
+    private void evict() {
+        Iterator<CachedObject> it = entries.values().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            CachedObject eldest = it.next();
+            if (pins.containsKey(eldest.path())) {
+                continue;
+            }
+            it.remove();
+            totalBytes -= eldest.size();
+            scheduleDelete(eldest.path());
+            logger.debug("Evicted {} from the OSS cache", eldest.path());
+        }
+    }
+
+    // Called with the entries lock held
+    private void scheduleDelete(Path path) {
+        if (pins.containsKey(path)) {
+            orphaned.add(path);
+            return;
+        }
+        pendingDeletes.add(new PendingDelete(path, System.currentTimeMillis() + deleteGraceMillis));
+    }
+
+    private static Path await(CompletableFuture<Path> flight) throws IOException {
+        try {
+            return flight.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for an OSS download");
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (ex.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    private Path tempDir() {
+        return Paths.get(cacheDir).resolve("tmp");
+    }
+
+    private static String extension(String objectName) {
+        int dot = objectName.lastIndexOf('.');
+        return dot >= 0 && dot > objectName.lastIndexOf('/') ? objectName.substring(dot) : "";
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException ex) {
+            return 0;
+        }
+    }
+
+    private record CachedObject(Path path, long size) {}
+
+    private record PendingDelete(Path path, long dueAt) {}
+}
@@ -1,24 +1,52 @@
 package com.filemanager.service.impl;
 
+import com.aliyun.oss.ClientException;
 import com.aliyun.oss.OSS;
+import com.aliyun.oss.OSSException;
+import com.aliyun.oss.model.AbortMultipartUploadRequest;
+import com.aliyun.oss.model.CompleteMultipartUploadRequest;
 import com.aliyun.oss.model.CopyObjectRequest;
+import com.aliyun.oss.model.DeleteObjectsRequest;
+import com.aliyun.oss.model.GetObjectRequest;
+import com.aliyun.oss.model.InitiateMultipartUploadRequest;
 import com.aliyun.oss.model.OSSObject;
 import com.aliyun.oss.model.ObjectMetadata;
+import com.aliyun.oss.model.PartETag;
 import com.aliyun.oss.model.PutObjectRequest;
+import com.aliyun.oss.model.UploadPartRequest;
 import com.filemanager.service.OssService;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Service
 public class OssServiceImpl implements OssService {
@@ -37,11 +65,55 @@ public class OssServiceImpl implements OssService {
     private long urlExpiration;
     @Value("${aliyun.oss.public-bucket-name}")
     private String publicBucketName;
+    @Autowired
+    private ThreadPoolTaskExecutor ossUploadExecutor;
+
+    // Files at least this large are uploaded in parts
+    @Value("${aliyun.oss.multipart.threshold:104857600}")
+    private long multipartThreshold;
+    @Value("${aliyun.oss.multipart.part-size:16777216}")
+    private long partSize;
+    // Parts of one upload in flight at once
+    @Value("${aliyun.oss.multipart.concurrency:4}")
+    private int partConcurrency;
+    // Parts of streamed uploads held in memory at once, shared by all uploads so that parallel
+    // uploads wait for a buffer instead of running out of heap
+    @Value("${aliyun.oss.multipart.stream-buffers:8}")
+    private int streamBuffers;
+    private Semaphore streamBufferPermits;
+    @Value("${aliyun.oss.multipart.max-retries:3}")
+    private int partMaxRetries;
+
+    // OSS accepts at most 10000 parts per upload
+    private static final int MAX_PARTS = 10000;
+    // and at most 1000 keys per DeleteObjects request
+    private static final int MAX_DELETE_KEYS = 1000;
 
+    // A cached signed URL is handed out again while it stays valid for at least this long
+    @Value("${aliyun.oss.signed-url.safety-margin-ms:300000}")
+    private long signedUrlSafetyMargin;
+    @Value("${aliyun.oss.signed-url.cache-size:10000}")
+    private int signedUrlCacheSize;
+
+    // Signed URLs of the private bucket by object name, least recently used first. Guarded by itself.
+    private final Map<String, SignedUrl> signedUrls = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, SignedUrl> eldest) {
+            return size() > signedUrlCacheSize;
+        }
+    };
+
+    private record SignedUrl(URL url, long validity, long expiresAt) {}
+
+    @PostConstruct
+    void init() {
+        streamBufferPermits = new Semaphore(Math.max(1, streamBuffers), true);
+    }
 
     @Override
     public String uploadFile(MultipartFile file, String objectName) throws IOException {
         logger.debug("Uploading file to OSS: {}", objectName);
+        evictSignedUrl(objectName);
         
         // Create object metadata
         ObjectMetadata metadata = new ObjectMetadata();
@@ -50,6 +122,19 @@ public class OssServiceImpl implements OssService {
         
         // Create the full object name with directory prefix
         String fullObjectName = directoryPrefix + "/" + objectName;
+
+        if (file.getSize() >= multipartThreshold) {
+            // The upload is on disk already, every part reads its own range of it
+            long size = file.getSize();
+            uploadMultipart(fullObjectName, file.getContentType(), size, (offset, maxLength) -> offset >= size ? null
+                : new Part(Math.min(maxLength, size - offset), () -> {
+                    InputStream in = file.getInputStream();
+                    in.skipNBytes(offset);
+                    return in;
+                }));
+            logger.info("File uploaded successfully to OSS: {}", fullObjectName);
+            return "https://" + bucketName + "." + domain + "/" + fullObjectName;
+        }
         
         // Create put object request
         PutObjectRequest putObjectRequest = new PutObjectRequest(bucketName, fullObjectName, file.getInputStream(), metadata);
@@ -63,6 +148,220 @@ public class OssServiceImpl implements OssService {
         return "https://" + bucketName + "." + domain + "/" + fullObjectName;
     }
 
+    @Override
+    public String uploadFile(Path file, String objectName, String contentType) throws IOException {
+        logger.debug("Uploading local file {} to OSS: {}", file, objectName);
+        evictSignedUrl(objectName);
+
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentType(contentType);
+        metadata.setContentLength(Files.size(file));
+
+        String fullObjectName = directoryPrefix + "/" + objectName;
+
+        if (metadata.getContentLength() >= multipartThreshold) {
+            // Every part reads its own range of the file, nothing is buffered
+            long size = metadata.getContentLength();
+            uploadMultipart(fullObjectName, contentType, size, (offset, maxLength) -> offset >= size ? null
+                : new Part(Math.min(maxLength, size - offset), () -> {
+                    InputStream in = Files.newInputStream(file);
+                    in.skipNBytes(offset);
+                    return in;
+                }));
+            logger.info("File uploaded successfully to OSS: {}", fullObjectName);
+            return "https://" + bucketName + "." + domain + "/" + fullObjectName;
+        }
+
+        // The SDK reads the file from disk while sending, it is never held in memory
+        PutObjectRequest putObjectRequest = new PutObjectRequest(bucketName, fullObjectName, file.toFile(), metadata);
+        ossClient.putObject(putObjectRequest);
+
+        logger.info("File uploaded successfully to OSS: {}", fullObjectName);
+
+        return "https://" + bucketName + "." + domain + "/" + fullObjectName;
+    }
+
+    @Override
+    public String uploadFile(InputStream content, long contentLength, String objectName, String contentType) throws IOException {
+        logger.debug("Streaming upload to OSS: {}, declared length {}", objectName, contentLength);
+        evictSignedUrl(objectName);
+        String fullObjectName = directoryPrefix + "/" + objectName;
+
+        if (contentLength >= 0 && contentLength < multipartThreshold) {
+            ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentType(contentType);
+            metadata.setContentLength(contentLength);
+            ossClient.putObject(new PutObjectRequest(bucketName, fullObjectName, content, metadata));
+        } else {
+            uploadMultipart(fullObjectName, contentType, contentLength, streamParts(content));
+        }
+
+        logger.info("File uploaded successfully to OSS: {}", fullObjectName);
+        return "https://" + bucketName + "." + domain + "/" + fullObjectName;
+    }
+
+    /**
+     * Parts read off a stream in order, each one is buffered until it has been sent. A part waits
+     * for one of the shared stream buffers before it is read.
+     */
+    private PartSource streamParts(InputStream in) {
+        return (offset, maxLength) -> {
+            try {
+                streamBufferPermits.acquire();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for an upload buffer");
+            }
+            byte[] bytes;
+            try {
+                bytes = in.readNBytes((int) maxLength);
+            } catch (IOException | RuntimeException ex) {
+                streamBufferPermits.release();
+                throw ex;
+            }
+            if (bytes.length == 0) {
+                streamBufferPermits.release();
+                return null;
+            }
+            AtomicBoolean released = new AtomicBoolean();
+            return new Part(bytes.length, () -> new ByteArrayInputStream(bytes), () -> {
+                if (released.compareAndSet(false, true)) {
+                    streamBufferPermits.release();
+                }
+            });
+        };
+    }
+
+    /**
+     * Upload an object in parts sent concurrently on the upload pool. A part that fails is sent
+     * again on its own, up to partMaxRetries times. If it still fails the upload is aborted, so no
+     * orphaned parts are left in the bucket.
+     */
+    private void uploadMultipart(String fullObjectName, String contentType, long size, PartSource source) throws IOException {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentType(contentType);
+        String uploadId = ossClient.initiateMultipartUpload(
+            new InitiateMultipartUploadRequest(bucketName, fullObjectName, metadata)).getUploadId();
+
+        // A size known up front raises the part size so the upload fits into MAX_PARTS
+        long effectivePartSize = size > 0 ? Math.max(partSize, (size + MAX_PARTS - 1) / MAX_PARTS) : partSize;
+        logger.debug("Uploading {} bytes to {} in parts of {} bytes", size, fullObjectName, effectivePartSize);
+
+        Semaphore window = new Semaphore(partConcurrency);
+        List<Future<PartETag>> futures = new ArrayList<>();
+        List<Part> parts = new ArrayList<>();
+        try {
+            long offset = 0;
+            for (int partNumber = 1; ; partNumber++) {
+                window.acquire();
+                Part part;
+                try {
+                    part = source.next(offset, effectivePartSize);
+                    if (part != null && partNumber > MAX_PARTS) {
+                        part.release().run();
+                        throw new IOException("Upload exceeds " + MAX_PARTS + " parts: " + fullObjectName);
+                    }
+                } catch (IOException ex) {
+                    window.release();
+                    throw ex;
+                }
+                if (part == null) {
+                    window.release();
+                    break;
+                }
+                offset += part.length();
+                int number = partNumber;
+                parts.add(part);
+                futures.add(ossUploadExecutor.submit(() -> {
+                    try {
+                        return uploadPart(fullObjectName, uploadId, number, part);
+                    } finally {
+                        part.release().run();
+                        window.release();
+                    }
+                }));
+            }
+
+            if (futures.isEmpty()) {
+                // A multipart upload cannot be completed without parts
+                abortMultipart(fullObjectName, uploadId, futures, parts);
+                ossClient.putObject(new PutObjectRequest(bucketName, fullObjectName, new ByteArrayInputStream(new byte[0]), metadata));
+                return;
+            }
+            List<PartETag> partETags = new ArrayList<>(futures.size());
+            for (Future<PartETag> future : futures) {
+                partETags.add(future.get());
+            }
+            ossClient.completeMultipartUpload(
+                new CompleteMultipartUploadRequest(bucketName, fullObjectName, uploadId, partETags));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            abortMultipart(fullObjectName, uploadId, futures, parts);
+            throw new IOException("Upload interrupted: " + fullObjectName, ex);
+        } catch (ExecutionException ex) {
+            abortMultipart(fullObjectName, uploadId, futures, parts);
+            throw new IOException("Failed to upload " + fullObjectName + ": " + ex.getCause().getMessage(), ex.getCause());
+        } catch (IOException | RuntimeException ex) {
+            abortMultipart(fullObjectName, uploadId, futures, parts);
+            throw ex;
+        }
+    }
+
+    private PartETag uploadPart(String fullObjectName, String uploadId, int partNumber, Part part)
+            throws IOException, InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try (InputStream in = part.opener().open()) {
+                UploadPartRequest request = new UploadPartRequest(bucketName, fullObjectName, uploadId, partNumber, in, part.length());
+                return ossClient.uploadPart(request).getPartETag();
+            } catch (OSSException | ClientException ex) {
+                if (attempt > partMaxRetries) {
+                    throw ex;
+                }
+                logger.warn("Part {} of {} failed on attempt {}, retrying: {}", partNumber, fullObjectName, attempt, ex.getMessage());
+                Thread.sleep(200L * attempt);
+            }
+        }
+    }
+
+    private void abortMultipart(String fullObjectName, String uploadId, List<Future<PartETag>> futures, List<Part> parts) {
+        futures.forEach(future -> future.cancel(true));
+        // Parts cancelled before they started never give their buffer back themselves
+        parts.forEach(part -> part.release().run());
+        try {
+            ossClient.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, fullObjectName, uploadId));
+        } catch (RuntimeException ex) {
+            logger.warn("Could not abort multipart upload {} of {}", uploadId, fullObjectName, ex);
+        }
+    }
+
+    /**
+     * Provides the parts of a multipart upload, called once per part in order
+     */
+    @FunctionalInterface
+    private interface PartSource {
+        /**
+         * The part starting at offset, at most maxLength bytes long, or null once the content ends
+         */
+        Part next(long offset, long maxLength) throws IOException;
+    }
+
+    /**
+     * Opens the bytes of one part, again each time the part is retried
+     */
+    @FunctionalInterface
+    private interface PartOpener {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * One part of an upload, release gives back what holds its bytes once it is sent or abandoned
+     */
+    private record Part(long length, PartOpener opener, Runnable release) {
+        Part(long length, PartOpener opener) {
+            this(length, opener, () -> { });
+        }
+    }
+
     @Override
     public Resource downloadFile(String objectName) throws IOException {
         logger.debug("Downloading file from OSS: {}", objectName);
@@ -73,8 +372,8 @@ public class OssServiceImpl implements OssService {
         // Get the object
         OSSObject ossObject = ossClient.getObject(bucketName, fullObjectName);
         
-        // Create a resource from the input stream
-        InputStream inputStream = ossObject.getObjectContent();
+        // Closing the stream gives the connection back to the client pool
+        InputStream inputStream = new OssObjectInputStream(ossObject);
         Resource resource = new InputStreamResource(inputStream) {
             @Override
             public String getFilename() {
@@ -92,6 +391,58 @@ public class OssServiceImpl implements OssService {
         return resource;
     }
 
+    @Override
+    public InputStream openRange(String objectName, long start, long end) {
+        String fullObjectName = directoryPrefix + "/" + objectName;
+        GetObjectRequest request = new GetObjectRequest(bucketName, fullObjectName);
+        request.setRange(start, end);
+        logger.debug("Opening bytes {}-{} of OSS object: {}", start, end, fullObjectName);
+        return new OssObjectInputStream(ossClient.getObject(request));
+    }
+
+    @Override
+    public long getObjectLength(String objectName) {
+        return ossClient.getObjectMetadata(bucketName, directoryPrefix + "/" + objectName).getContentLength();
+    }
+
+    /**
+     * The content of an OSS object that releases its connection when closed. A stream closed
+     * before its end aborts the connection, the rest of the object is not downloaded just to
+     * keep the connection reusable.
+     */
+    private static class OssObjectInputStream extends FilterInputStream {
+        private final OSSObject ossObject;
+        private boolean finished;
+
+        OssObjectInputStream(OSSObject ossObject) {
+            super(ossObject.getObjectContent());
+            this.ossObject = ossObject;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            finished = b == -1;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            finished = read == -1;
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (finished) {
+                ossObject.close();
+            } else {
+                ossObject.forcedClose();
+            }
+        }
+    }
+
     @Override
     public void deleteFile(String objectName) throws IOException {
         logger.debug("Deleting file from OSS: {}", objectName);
@@ -101,6 +452,7 @@ public class OssServiceImpl implements OssService {
         
         // Delete the object
         ossClient.deleteObject(bucketName, fullObjectName);
+        evictSignedUrl(objectName);
         
         logger.info("File deleted successfully from OSS: {}", fullObjectName);
     }
@@ -118,24 +470,79 @@ public class OssServiceImpl implements OssService {
         logger.info("File deleted successfully from public OSS: {}", fullObjectName);
     }
 
+    @Override
+    public Set<String> deleteFiles(Collection<String> objectNames) throws IOException {
+        Set<String> failed = deleteObjects(bucketName, objectNames);
+        objectNames.forEach(this::evictSignedUrl);
+        return failed;
+    }
+
+    @Override
+    public Set<String> deletePublicFiles(Collection<String> objectNames) throws IOException {
+        return deleteObjects(publicBucketName, objectNames);
+    }
+
+    private Set<String> deleteObjects(String bucket, Collection<String> objectNames) {
+        List<String> keys = objectNames.stream().map(name -> directoryPrefix + "/" + name).distinct().toList();
+        Set<String> failed = new LinkedHashSet<>();
+        for (int from = 0; from < keys.size(); from += MAX_DELETE_KEYS) {
+            List<String> batch = keys.subList(from, Math.min(from + MAX_DELETE_KEYS, keys.size()));
+            DeleteObjectsRequest request = new DeleteObjectsRequest(bucket);
+            request.setKeys(batch);
+            // Verbose, the SDK only returns the deleted keys and drops the errors of quiet mode.
+            // Keys that do not exist are reported as deleted.
+            request.setQuiet(false);
+            Set<String> deleted = new HashSet<>(ossClient.deleteObjects(request).getDeletedObjects());
+            for (String key : batch) {
+                if (!deleted.contains(key)) {
+                    failed.add(key.substring(directoryPrefix.length() + 1));
+                }
+            }
+            logger.debug("Deleted {} of {} objects from OSS bucket {}", deleted.size(), batch.size(), bucket);
+        }
+        if (!failed.isEmpty()) {
+            logger.warn("{} of {} files could not be deleted from OSS bucket {}", failed.size(), keys.size(), bucket);
+        }
+        logger.info("{} files deleted from OSS bucket {}", keys.size() - failed.size(), bucket);
+        return failed;
+    }
+
     @Override
     public URL generateSignedUrl(String objectName, long expirationInMillis) {
+        long now = System.currentTimeMillis();
+        synchronized (signedUrls) {
+            SignedUrl cached = signedUrls.get(objectName);
+            if (cached != null && cached.validity() == expirationInMillis && cached.expiresAt() - now > signedUrlSafetyMargin) {
+                logger.trace("Reusing signed URL for OSS object: {}", objectName);
+                return cached.url();
+            }
+        }
         logger.debug("Generating signed URL for OSS object: {}", objectName);
         
         // Create the full object name with directory prefix
         String fullObjectName = directoryPrefix + "/" + objectName;
         
         // Set the expiration date
-        Date expiration = new Date(System.currentTimeMillis() + expirationInMillis);
+        Date expiration = new Date(now + expirationInMillis);
         
         // Generate the signed URL
         URL url = ossClient.generatePresignedUrl(bucketName, fullObjectName, expiration);
+        synchronized (signedUrls) {
+            signedUrls.put(objectName, new SignedUrl(url, expirationInMillis, expiration.getTime()));
+        }
         
         logger.info("Signed URL generated successfully for OSS object: {}", fullObjectName);
         
         return url;
     }
     
+    // The object changed or is gone, its signed URL must not be handed out again
+    private void evictSignedUrl(String objectName) {
+        synchronized (signedUrls) {
+            signedUrls.remove(objectName);
+        }
+    }
+
     @Override
     public String copyFile(String sourceObjectName, String targetBucketName, String targetObjectName) throws IOException {
         logger.debug("Copying file from {} to {}/{}", sourceObjectName, targetBucketName, targetObjectName);
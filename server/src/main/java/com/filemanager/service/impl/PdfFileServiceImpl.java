@@ -0,0 +1,548 @@
+package com.filemanager.service.impl;
+
+import com.filemanager.exception.TranslationException;
+import com.filemanager.service.ExtractedFile;
+import com.filemanager.service.PdfFileService;
+import com.filemanager.service.TranslationProgressListener;
+import com.filemanager.service.TranslationTarget;
+import com.filemanager.util.TranslationMetrics;
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.colors.ColorConstants;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.geom.Vector;
+import com.itextpdf.kernel.pdf.PdfArray;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfLiteral;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfNumber;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfOutputStream;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.PdfString;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvasConstants;
+import com.itextpdf.kernel.pdf.canvas.parser.EventType;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfCanvasProcessor;
+import com.itextpdf.kernel.pdf.canvas.parser.data.IEventData;
+import com.itextpdf.kernel.pdf.canvas.parser.data.ImageRenderInfo;
+import com.itextpdf.kernel.pdf.canvas.parser.data.TextRenderInfo;
+import com.itextpdf.kernel.pdf.canvas.parser.listener.IEventListener;
+import com.itextpdf.layout.Canvas;
+import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.layout.LayoutArea;
+import com.itextpdf.layout.layout.LayoutContext;
+import com.itextpdf.layout.layout.LayoutResult;
+import com.itextpdf.layout.renderer.CanvasRenderer;
+import com.itextpdf.layout.renderer.IRenderer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+@Service
+public class PdfFileServiceImpl implements PdfFileService {
+    private static final Logger logger = LoggerFactory.getLogger(PdfFileServiceImpl.class);
+
+    private static final float MIN_FONT_SIZE = 4f;
+    private static final float FONT_SHRINK_STEP = 0.9f;
+
+    @Autowired
+    private TranslationTargetRunner translationTargetRunner;
+
+    // A TrueType/OpenType font covering the target scripts, used instead of the built-in fonts
+    @Value("${translate.pdf.font-path:}")
+    private String fontPath;
+
+    @Override
+    public ExtractedFile extractPdfFile(String file, TranslationProgressListener listener) throws IOException {
+        long started = System.nanoTime();
+        List<List<TextBlock>> pages = new ArrayList<>();
+        long characters = 0;
+        try (PdfDocument pdf = new PdfDocument(new PdfReader(file))) {
+            for (int pageNumber = 1; pageNumber <= pdf.getNumberOfPages(); pageNumber++) {
+                List<TextBlock> blocks = extractBlocks(pdf.getPage(pageNumber));
+                for (TextBlock block : blocks) {
+                    characters += block.text.length();
+                }
+                pages.add(blocks);
+            }
+        }
+        listener.onStageCompleted(TranslationMetrics.STAGE_EXTRACT, System.nanoTime() - started);
+
+        int segments = pages.stream().mapToInt(List::size).sum();
+        long extractedCharacters = characters;
+        return new ExtractedFile() {
+            @Override
+            public long countCharacters() {
+                return extractedCharacters;
+            }
+
+            @Override
+            public void translate(List<TranslationTarget> targets) throws InterruptedException {
+                // Each target stamps its own copy, so every one of them only holds the current page
+                translationTargetRunner.runAll(targets, target -> translateTarget(file, pages, segments, target));
+            }
+        };
+    }
+
+    private void translateTarget(String file, List<List<TextBlock>> pages, int segments, TranslationTarget target)
+            throws IOException, TranslationException, InterruptedException {
+        TranslationProgressListener listener = target.getListener();
+        long translateNanos = 0;
+        long saveNanos = 0;
+        listener.onSegmentsFound(segments);
+
+        long started = System.nanoTime();
+        try (PdfDocument pdf = new PdfDocument(new PdfReader(file), new PdfWriter(target.getOutputFile()))) {
+            PdfFont font = createFont(target.getTargetLang());
+            listener.onStageCompleted(TranslationMetrics.STAGE_LOAD, System.nanoTime() - started);
+
+            for (int pageNumber = 1; pageNumber <= pages.size(); pageNumber++) {
+                PdfPage page = pdf.getPage(pageNumber);
+                List<TextBlock> blocks = pages.get(pageNumber - 1);
+
+                started = System.nanoTime();
+                List<String> texts = new ArrayList<>(blocks.size());
+                for (TextBlock block : blocks) {
+                    texts.add(block.text.toString());
+                }
+                List<String> translated = texts.isEmpty() ? Collections.emptyList() : target.getTranslator().translate(texts);
+                listener.onSegmentsTranslated(blocks.size());
+                translateNanos += System.nanoTime() - started;
+
+                started = System.nanoTime();
+                Set<Integer> stillShown = removeText(pdf, page, blocks, translated);
+                overlay(pdf, page, blocks, translated, stillShown, font);
+                page.flush();
+                saveNanos += System.nanoTime() - started;
+            }
+            logger.info("Translated {} text blocks on {} pages of {}", segments, pages.size(), file);
+        }
+        listener.onStageCompleted(TranslationMetrics.STAGE_TRANSLATE, translateNanos);
+        listener.onStageCompleted(TranslationMetrics.STAGE_SAVE, saveNanos);
+    }
+
+    private List<TextBlock> extractBlocks(PdfPage page) {
+        TextChunkCollector collector = new TextChunkCollector();
+        new PdfCanvasProcessor(collector).processPageContent(page);
+
+        // Chunks on the same baseline form a line, lines stacked close together form a block
+        List<TextBlock> lines = new ArrayList<>();
+        TextBlock line = null;
+        for (TextChunk chunk : collector.chunks) {
+            if (line != null && line.continuesLine(chunk)) {
+                line.appendToLine(chunk);
+            } else {
+                line = new TextBlock(chunk);
+                lines.add(line);
+            }
+        }
+
+        List<TextBlock> blocks = new ArrayList<>();
+        TextBlock block = null;
+        for (TextBlock next : lines) {
+            if (block != null && block.continuesBlock(next)) {
+                block.appendBlock(next);
+            } else {
+                block = next;
+                blocks.add(block);
+            }
+        }
+        blocks.removeIf(candidate -> candidate.text.toString().isBlank());
+        return blocks;
+    }
+
+    /**
+     * Take the text of the translated blocks out of the content stream of the page, so that the
+     * original is neither drawn nor extractable from the output
+     *
+     * @return The chunks of translated blocks that still show on the page and need covering
+     */
+    private Set<Integer> removeText(PdfDocument pdf, PdfPage page, List<TextBlock> blocks, List<String> translated) {
+        Set<Integer> removable = new HashSet<>();
+        for (int i = 0; i < blocks.size(); i++) {
+            String text = translated.get(i);
+            if (text != null && !text.isBlank()) {
+                removable.addAll(blocks.get(i).chunks);
+            }
+        }
+        if (removable.isEmpty()) {
+            return removable;
+        }
+
+        TextRemover remover = new TextRemover(removable);
+        try {
+            remover.processPageContent(page);
+        } catch (RuntimeException ex) {
+            logger.warn("Could not rewrite the content of page {}, covering its text instead", pdf.getPageNumber(page), ex);
+            return removable;
+        }
+        if (remover.inlineImages) {
+            // The parser does not keep inline images in a form that can be written back
+            return removable;
+        }
+        page.put(PdfName.Contents, new PdfStream(remover.bytes.toByteArray()).makeIndirect(pdf));
+        return remover.shown;
+    }
+
+    /**
+     * Draw each translation in the area of its original block, shrinking the font until it fits.
+     * Blocks whose original still shows are covered first.
+     */
+    private void overlay(PdfDocument pdf, PdfPage page, List<TextBlock> blocks, List<String> translated,
+                         Set<Integer> stillShown, PdfFont font) {
+        PdfCanvas pdfCanvas = new PdfCanvas(page.newContentStreamAfter(), page.getResources(), pdf);
+        for (int i = 0; i < blocks.size(); i++) {
+            String text = translated.get(i);
+            if (text == null || text.isBlank()) {
+                continue;
+            }
+            TextBlock block = blocks.get(i);
+            Rectangle area = new Rectangle(block.left, block.bottom, block.right - block.left, block.top - block.bottom);
+
+            if (block.chunks.stream().anyMatch(stillShown::contains)) {
+                pdfCanvas.saveState()
+                    .setFillColor(ColorConstants.WHITE)
+                    .rectangle(area)
+                    .fill()
+                    .restoreState();
+            }
+
+            try (Canvas canvas = new Canvas(pdfCanvas, area)) {
+                canvas.add(fit(canvas, text, font, block.fontSize, area));
+            }
+        }
+    }
+
+    private Paragraph fit(Canvas canvas, String text, PdfFont font, float fontSize, Rectangle area) {
+        float size = fontSize;
+        while (true) {
+            Paragraph paragraph = new Paragraph(text)
+                .setFont(font)
+                .setFontSize(size)
+                .setMultipliedLeading(1.0f)
+                .setMargin(0)
+                .setPadding(0);
+            if (size <= MIN_FONT_SIZE) {
+                return paragraph;
+            }
+            IRenderer renderer = paragraph.createRendererSubTree().setParent(new CanvasRenderer(canvas));
+            LayoutResult result = renderer.layout(new LayoutContext(new LayoutArea(1, area.clone())));
+            if (result.getStatus() == LayoutResult.FULL) {
+                return paragraph;
+            }
+            size = Math.max(MIN_FONT_SIZE, size * FONT_SHRINK_STEP);
+        }
+    }
+
+    /**
+     * The font the translation is drawn with, the built-in fonts only cover Latin and CJK scripts
+     */
+    private PdfFont createFont(String targetLang) throws IOException {
+        if (!fontPath.isBlank()) {
+            return PdfFontFactory.createFont(fontPath, PdfEncodings.IDENTITY_H, PdfFontFactory.EmbeddingStrategy.PREFER_EMBEDDED);
+        }
+        String language = targetLang.toUpperCase(Locale.ROOT);
+        if (language.equals("ZH-HANT")) {
+            return PdfFontFactory.createFont("MSung-Light", "UniCNS-UCS2-H", PdfFontFactory.EmbeddingStrategy.PREFER_NOT_EMBEDDED);
+        }
+        if (language.startsWith("ZH")) {
+            return PdfFontFactory.createFont("STSong-Light", "UniGB-UCS2-H", PdfFontFactory.EmbeddingStrategy.PREFER_NOT_EMBEDDED);
+        }
+        if (language.startsWith("JA")) {
+            return PdfFontFactory.createFont("KozMinPro-Regular", "UniJIS-UCS2-H", PdfFontFactory.EmbeddingStrategy.PREFER_NOT_EMBEDDED);
+        }
+        if (language.startsWith("KO")) {
+            return PdfFontFactory.createFont("HYSMyeongJo-Medium", "UniKS-UCS2-H", PdfFontFactory.EmbeddingStrategy.PREFER_NOT_EMBEDDED);
+        }
+        return PdfFontFactory.createFont(StandardFonts.HELVETICA);
+    }
+
+    private static class TextChunk {
+        // Position among the non-empty text drawn on the page, in content stream order
+        int index;
+        String text;
+        float left;
+        float right;
+        float bottom;
+        float top;
+        float baseline;
+    }
+
+    /**
+     * Collects the text drawn on a page in content stream order
+     */
+    private static class TextChunkCollector implements IEventListener {
+        private final List<TextChunk> chunks = new ArrayList<>();
+
+        @Override
+        public void eventOccurred(IEventData data, EventType type) {
+            if (type != EventType.RENDER_TEXT) {
+                return;
+            }
+            TextRenderInfo info = (TextRenderInfo) data;
+            String text = info.getText();
+            if (text == null || text.isEmpty()) {
+                return;
+            }
+            Vector descentStart = info.getDescentLine().getStartPoint();
+            Vector ascentEnd = info.getAscentLine().getEndPoint();
+            TextChunk chunk = new TextChunk();
+            chunk.text = text;
+            chunk.left = Math.min(descentStart.get(Vector.I1), ascentEnd.get(Vector.I1));
+            chunk.right = Math.max(descentStart.get(Vector.I1), ascentEnd.get(Vector.I1));
+            chunk.bottom = Math.min(descentStart.get(Vector.I2), ascentEnd.get(Vector.I2));
+            chunk.top = Math.max(descentStart.get(Vector.I2), ascentEnd.get(Vector.I2));
+            chunk.baseline = info.getBaseline().getStartPoint().get(Vector.I2);
+            chunk.index = chunks.size();
+            chunks.add(chunk);
+        }
+
+        @Override
+        public Set<EventType> getSupportedEvents() {
+            return Set.of(EventType.RENDER_TEXT);
+        }
+    }
+
+    /**
+     * Copies the content stream of a page, replacing the strings of the removable chunks with
+     * the displacement they would have moved the text position by. Text drawn after them on the
+     * same line stays where it was.
+     */
+    private static class TextRemover extends PdfCanvasProcessor {
+        private static final Set<String> SHOW_TEXT = Set.of("Tj", "TJ", "'", "\"");
+        // Text render modes that draw nothing, such text usually lies over a scanned image
+        private static final Set<Integer> INVISIBLE = Set.of(PdfCanvasConstants.TextRenderingMode.INVISIBLE,
+            PdfCanvasConstants.TextRenderingMode.CLIP);
+
+        private final Set<Integer> removable;
+        // Removable chunks the rewritten page still shows
+        final Set<Integer> shown = new HashSet<>();
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final PdfOutputStream output = new PdfOutputStream(bytes);
+        private final List<ShownString> strings = new ArrayList<>();
+        private int nextChunk;
+        private int xObjectDepth;
+        boolean inlineImages;
+
+        TextRemover(Set<Integer> removable) {
+            super(new IEventListener() {
+                @Override
+                public void eventOccurred(IEventData data, EventType type) {
+                }
+
+                @Override
+                public Set<EventType> getSupportedEvents() {
+                    return Set.of(EventType.RENDER_TEXT, EventType.RENDER_IMAGE);
+                }
+            });
+            this.removable = removable;
+        }
+
+        @Override
+        protected void eventOccurred(IEventData data, EventType type) {
+            if (type == EventType.RENDER_IMAGE && ((ImageRenderInfo) data).isInline()) {
+                inlineImages = true;
+            } else if (type == EventType.RENDER_TEXT) {
+                // Numbered like TextChunkCollector numbers the chunks, the content is the same
+                TextRenderInfo info = (TextRenderInfo) data;
+                String text = info.getText();
+                int chunk = text == null || text.isEmpty() ? -1 : nextChunk++;
+                if (xObjectDepth > 0) {
+                    // Form XObjects can be shared with other pages, their text is covered instead
+                    if (removable.contains(chunk)) {
+                        shown.add(chunk);
+                    }
+                } else {
+                    float scale = info.getFontSize() * info.getHorizontalScaling();
+                    // TJ numbers are thousandths of the font size, the scaling is a percentage
+                    float displacement = scale == 0 ? Float.NaN : -info.getUnscaledWidth() * 100000f / scale;
+                    strings.add(new ShownString(chunk, displacement, INVISIBLE.contains(info.getTextRenderMode())));
+                }
+            }
+            super.eventOccurred(data, type);
+        }
+
+        @Override
+        protected void invokeOperator(PdfLiteral operator, List<PdfObject> operands) {
+            if (xObjectDepth > 0) {
+                super.invokeOperator(operator, operands);
+                return;
+            }
+            String name = operator.toString();
+            boolean xObject = "Do".equals(name);
+            strings.clear();
+            if (xObject) {
+                xObjectDepth++;
+            }
+            try {
+                super.invokeOperator(operator, operands);
+            } finally {
+                if (xObject) {
+                    xObjectDepth--;
+                }
+            }
+            if (SHOW_TEXT.contains(name) && strings.stream().anyMatch(string -> removable.contains(string.chunk))
+                    && rewriteShowText(name, operands)) {
+                return;
+            }
+            for (ShownString string : strings) {
+                if (removable.contains(string.chunk)) {
+                    shown.add(string.chunk);
+                }
+            }
+            write(operands);
+        }
+
+        /**
+         * Write a text showing operator as a TJ that keeps the strings of other chunks
+         *
+         * @return false if the strings could not be matched up with what was drawn
+         */
+        private boolean rewriteShowText(String name, List<PdfObject> operands) {
+            // The operands end with the operator, TJ takes an array and " takes two spacings first
+            PdfObject shownOperand = operands.get(operands.size() - 2);
+            List<PdfObject> elements = new ArrayList<>();
+            if (shownOperand instanceof PdfArray array) {
+                array.forEach(elements::add);
+            } else {
+                elements.add(shownOperand);
+            }
+            if (elements.stream().filter(element -> element instanceof PdfString).count() != strings.size()) {
+                return false;
+            }
+
+            PdfArray rewritten = new PdfArray();
+            int next = 0;
+            for (PdfObject element : elements) {
+                if (!(element instanceof PdfString)) {
+                    rewritten.add(element);
+                    continue;
+                }
+                ShownString string = strings.get(next++);
+                if (!removable.contains(string.chunk)) {
+                    rewritten.add(element);
+                } else if (Float.isNaN(string.displacement)) {
+                    return false;
+                } else {
+                    rewritten.add(new PdfNumber(string.displacement));
+                }
+            }
+            for (ShownString string : strings) {
+                if (removable.contains(string.chunk) && string.invisible) {
+                    shown.add(string.chunk);
+                }
+            }
+
+            if ("\"".equals(name)) {
+                write(List.of(operands.get(0), new PdfLiteral("Tw")));
+                write(List.of(operands.get(1), new PdfLiteral("Tc")));
+            }
+            if ("'".equals(name) || "\"".equals(name)) {
+                write(List.of(new PdfLiteral("T*")));
+            }
+            write(List.of(rewritten, new PdfLiteral("TJ")));
+            return true;
+        }
+
+        private void write(List<PdfObject> operands) {
+            for (int i = 0; i < operands.size(); i++) {
+                output.write(operands.get(i));
+                if (i < operands.size() - 1) {
+                    output.writeSpace();
+                } else {
+                    output.writeNewLine();
+                }
+            }
+        }
+
+        private record ShownString(int chunk, float displacement, boolean invisible) {}
+    }
+
+    /**
+     * A line, or a run of lines, of text and the area it covers on the page
+     */
+    private static class TextBlock {
+        final StringBuilder text = new StringBuilder();
+        final List<Integer> chunks = new ArrayList<>();
+        float left;
+        float right;
+        float bottom;
+        float top;
+        float baseline;
+        final float fontSize;
+
+        TextBlock(TextChunk chunk) {
+            text.append(chunk.text);
+            chunks.add(chunk.index);
+            left = chunk.left;
+            right = chunk.right;
+            bottom = chunk.bottom;
+            top = chunk.top;
+            baseline = chunk.baseline;
+            fontSize = Math.max(MIN_FONT_SIZE, chunk.top - chunk.bottom);
+        }
+
+        boolean continuesLine(TextChunk chunk) {
+            float height = top - bottom;
+            return Math.abs(chunk.baseline - baseline) < height * 0.3f
+                && chunk.left >= left
+                && chunk.left - right < height;
+        }
+
+        void appendToLine(TextChunk chunk) {
+            float gap = chunk.left - right;
+            if (gap > (top - bottom) * 0.15f && !endsWithSpace() && !chunk.text.startsWith(" ")) {
+                text.append(' ');
+            }
+            text.append(chunk.text);
+            chunks.add(chunk.index);
+            right = Math.max(right, chunk.right);
+            bottom = Math.min(bottom, chunk.bottom);
+            top = Math.max(top, chunk.top);
+        }
+
+        boolean continuesBlock(TextBlock line) {
+            float ratio = line.fontSize / fontSize;
+            return ratio > 0.8f && ratio < 1.25f
+                && line.top <= bottom + fontSize * 0.5f
+                && bottom - line.top < fontSize * 0.8f
+                && Math.abs(line.left - left) < fontSize * 2;
+        }
+
+        void appendBlock(TextBlock line) {
+            // A hyphen at the end of a line splits a word, otherwise lines are separated by a space
+            if (text.length() > 0 && text.charAt(text.length() - 1) == '-') {
+                text.setLength(text.length() - 1);
+            } else if (!endsWithSpace()) {
+                text.append(' ');
+            }
+            text.append(line.text);
+            chunks.addAll(line.chunks);
+            left = Math.min(left, line.left);
+            right = Math.max(right, line.right);
+            bottom = Math.min(bottom, line.bottom);
+            top = Math.max(top, line.top);
+        }
+
+        private boolean endsWithSpace() {
+            return text.length() > 0 && Character.isWhitespace(text.charAt(text.length() - 1));
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.filemanager.service.impl;
+
+import com.filemanager.model.DocumentStatus;
+import com.filemanager.repository.DocumentRepository;
+import com.filemanager.repository.DocumentRepository.DeletedFile;
+import com.filemanager.service.FileStorageService;
+import com.filemanager.service.OssCacheService;
+import com.filemanager.service.OssService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reclaims the storage of deleted documents. Deleting a document only flags its row, this
+ * collector removes the files in batches outside of any transaction and then purges the rows.
+ * A document whose file could not be removed is retried with exponential backoff, up to
+ * {@code storage.gc.max-attempts} times.
+ */
+@Component
+public class StorageGarbageCollector {
+    private static final Logger logger = LoggerFactory.getLogger(StorageGarbageCollector.class);
+
+    @Autowired
+    private DocumentRepository documentRepository;
+    @Autowired
+    private OssService ossService;
+    @Autowired
+    private OssCacheService ossCacheService;
+    @Autowired
+    private FileStorageService fileStorageService;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Value("${file.storage-type}")
+    private String storageType;
+    @Value("${storage.gc.batch-size:500}")
+    private int batchSize;
+    @Value("${storage.gc.max-attempts:10}")
+    private int maxAttempts;
+    @Value("${storage.gc.retry-backoff-ms:60000}")
+    private long retryBackoffMillis;
+
+    @Scheduled(fixedDelayString = "${storage.gc.interval-ms:60000}")
+    public void collect() {
+        int purged = 0;
+        List<DeletedFile> batch;
+        do {
+            batch = documentRepository.findDeletedForCollection(maxAttempts, batchSize);
+            if (!batch.isEmpty()) {
+                purged += collect(batch);
+            }
+            // Failed documents are not due again within this run, so every batch makes progress
+        } while (batch.size() == batchSize);
+        if (purged > 0) {
+            logger.info("Storage collector purged {} deleted documents", purged);
+        }
+    }
+
+    private int collect(List<DeletedFile> batch) {
+        // Translations without a file yet, or sharing the one of their master, have nothing to remove
+        List<DeletedFile> withFiles = new ArrayList<>(batch.size());
+        List<Long> collected = new ArrayList<>(batch.size());
+        for (DeletedFile file : batch) {
+            if (file.getFileName() != null && !file.getFileName().equals(file.getMasterFileName())) {
+                withFiles.add(file);
+            } else {
+                collected.add(file.getId());
+            }
+        }
+
+        if ("oss".equals(storageType)) {
+            try {
+                List<String> publicFileNames = withFiles.stream()
+                        .filter(file -> DocumentStatus.PUBLISHED.name().equals(file.getStatus()))
+                        .map(DeletedFile::getFileName)
+                        .toList();
+                Set<String> failed = new HashSet<>();
+                if (!publicFileNames.isEmpty()) {
+                    failed.addAll(ossService.deletePublicFiles(publicFileNames));
+                }
+                List<String> fileNames = withFiles.stream().map(DeletedFile::getFileName).toList();
+                failed.addAll(ossService.deleteFiles(fileNames));
+                fileNames.forEach(ossCacheService::invalidate);
+                // A document is only purged once OSS confirmed every copy of its file as deleted
+                for (DeletedFile file : withFiles) {
+                    if (failed.contains(file.getFileName())) {
+                        markFailed(file);
+                    } else {
+                        collected.add(file.getId());
+                    }
+                }
+            } catch (Exception ex) {
+                logger.warn("Could not delete {} files from OSS, will retry", withFiles.size(), ex);
+                withFiles.forEach(this::markFailed);
+            }
+        } else {
+            for (DeletedFile file : withFiles) {
+                try {
+                    fileStorageService.delete(file.getFileName(), file.getFilePath());
+                    collected.add(file.getId());
+                } catch (Exception ex) {
+                    logger.warn("Could not delete file {} of document {}, will retry", file.getFilePath(), file.getId(), ex);
+                    markFailed(file);
+                }
+            }
+        }
+
+        if (collected.isEmpty()) {
+            return 0;
+        }
+        Integer purged = transactionTemplate.execute(status -> {
+            documentRepository.deleteTagsByDocumentIdIn(collected);
+            return documentRepository.purgeDeletedByIdIn(collected);
+        });
+        return purged != null ? purged : 0;
+    }
+
+    private void markFailed(DeletedFile file) {
+        int attempts = file.getGcAttempts() != null ? file.getGcAttempts() : 0;
+        LocalDateTime retryAt = LocalDateTime.now().plus(Duration.ofMillis(retryBackoffMillis << Math.min(attempts, 10)));
+        transactionTemplate.executeWithoutResult(status -> documentRepository.markCollectionFailed(file.getId(), retryAt));
+        if (attempts + 1 >= maxAttempts) {
+            logger.error("Gave up deleting the file of document {} after {} attempts: {}", file.getId(), attempts + 1, file.getFilePath());
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.filemanager.service.impl;
+
+import com.filemanager.exception.TranslationException;
+import com.filemanager.service.ExtractedFile;
+import com.filemanager.service.TextFileService;
+import com.filemanager.service.TranslationProgressListener;
+import com.filemanager.service.TranslationTarget;
+import com.filemanager.util.TextChunker;
+import com.filemanager.util.TranslationMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+@Service
+public class TextFileServiceImpl implements TextFileService {
+    private static final Logger logger = LoggerFactory.getLogger(TextFileServiceImpl.class);
+
+    @Autowired
+    private TranslationTargetRunner translationTargetRunner;
+    @Autowired
+    private ThreadPoolTaskExecutor textPipelineExecutor;
+
+    // Longest piece of text sent as one segment
+    @Value("${translate.text.chunk-characters:4000}")
+    private int chunkCharacters;
+
+    // Characters handed to the translator per call
+    @Value("${translate.text.group-characters:100000}")
+    private int groupCharacters;
+
+    // Groups being translated ahead of the one being written
+    @Value("${translate.text.pipeline-depth:4}")
+    private int pipelineDepth;
+
+    @Override
+    public ExtractedFile extractTextFile(String file, TranslationProgressListener listener) throws IOException {
+        long started = System.nanoTime();
+        List<TextChunker.Piece> pieces = new ArrayList<>();
+        long characters = 0;
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)) {
+            TextChunker chunker = new TextChunker(reader, chunkCharacters);
+            TextChunker.Piece piece;
+            while ((piece = chunker.next()) != null) {
+                pieces.add(piece);
+                characters += piece.getText().length();
+            }
+        }
+        listener.onStageCompleted(TranslationMetrics.STAGE_EXTRACT, System.nanoTime() - started);
+
+        long extractedCharacters = characters;
+        return new ExtractedFile() {
+            @Override
+            public long countCharacters() {
+                return extractedCharacters;
+            }
+
+            @Override
+            public void translate(List<TranslationTarget> targets) throws InterruptedException {
+                translationTargetRunner.runAll(targets, target -> translateTarget(file, pieces, target));
+            }
+        };
+    }
+
+    private void translateTarget(String file, List<TextChunker.Piece> pieces, TranslationTarget target)
+            throws IOException, TranslationException, InterruptedException {
+        TranslationProgressListener listener = target.getListener();
+        long started = System.nanoTime();
+        listener.onSegmentsFound(pieces.size());
+        // At most pipelineDepth groups are being translated ahead of the writer
+        Deque<PendingGroup> inFlight = new ArrayDeque<>();
+
+        try (Writer writer = Files.newBufferedWriter(Paths.get(target.getOutputFile()), StandardCharsets.UTF_8)) {
+            int groupStart = 0;
+            int groupSize = 0;
+            for (int i = 0; i < pieces.size(); i++) {
+                groupSize += pieces.get(i).getText().length();
+                if (groupSize >= groupCharacters || i == pieces.size() - 1) {
+                    submit(inFlight, pieces.subList(groupStart, i + 1), target, writer);
+                    groupStart = i + 1;
+                    groupSize = 0;
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                write(inFlight.removeFirst(), writer, listener);
+            }
+        } finally {
+            inFlight.forEach(pending -> pending.translation.cancel(true));
+        }
+
+        // Translating and writing overlap, so the whole run counts as translation
+        listener.onStageCompleted(TranslationMetrics.STAGE_TRANSLATE, System.nanoTime() - started);
+        logger.info("Translated {} chunks of {} into {}", pieces.size(), file, target.getTargetLang());
+    }
+
+    /**
+     * Start translating a group, first writing out the oldest group if the pipeline is full
+     */
+    private void submit(Deque<PendingGroup> inFlight, List<TextChunker.Piece> group, TranslationTarget target, Writer writer)
+            throws IOException, TranslationException, InterruptedException {
+        if (inFlight.size() >= pipelineDepth) {
+            write(inFlight.removeFirst(), writer, target.getListener());
+        }
+        List<String> texts = new ArrayList<>(group.size());
+        for (TextChunker.Piece piece : group) {
+            texts.add(piece.getText());
+        }
+        Future<List<String>> translation = textPipelineExecutor.submit(() -> target.getTranslator().translate(texts));
+        inFlight.addLast(new PendingGroup(group, translation));
+    }
+
+    /**
+     * Wait for a group and write it, groups are always written in the order they were read
+     */
+    private void write(PendingGroup pending, Writer writer, TranslationProgressListener listener)
+            throws IOException, TranslationException, InterruptedException {
+        List<String> translated;
+        try {
+            translated = pending.translation.get();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof TranslationException translationException) {
+                throw translationException;
+            }
+            if (cause instanceof InterruptedException interruptedException) {
+                throw interruptedException;
+            }
+            throw new RuntimeException(cause);
+        }
+        for (int i = 0; i < pending.pieces.size(); i++) {
+            TextChunker.Piece piece = pending.pieces.get(i);
+            writer.write(piece.getLeading());
+            writer.write(translated.get(i));
+            writer.write(piece.getTrailing());
+        }
+        listener.onSegmentsTranslated(pending.pieces.size());
+    }
+
+    private static class PendingGroup {
+        final List<TextChunker.Piece> pieces;
+        final Future<List<String>> translation;
+
+        PendingGroup(List<TextChunker.Piece> pieces, Future<List<String>> translation) {
+            this.pieces = pieces;
+            this.translation = translation;
+        }
+    }
+}
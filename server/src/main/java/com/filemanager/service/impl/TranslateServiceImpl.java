@@ -1,27 +1,370 @@
 package com.filemanager.service.impl;
 
-import com.deepl.api.DeepLException;
-import com.deepl.api.TextResult;
-import com.deepl.api.Translator;
+import com.filemanager.exception.TranslationException;
+import com.filemanager.exception.TranslationThrottledException;
+import com.filemanager.model.dto.TranslationUsageDTO;
 import com.filemanager.service.TranslateService;
+import com.filemanager.service.TranslationMemoryService;
+import com.filemanager.service.TranslationProvider;
+import com.filemanager.util.SegmentClassifier;
+import com.filemanager.util.TranslationMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
 @Service
 public class TranslateServiceImpl implements TranslateService {
     private static final Logger logger = LoggerFactory.getLogger(TranslateServiceImpl.class);
+    private static final int MAX_THROTTLE_RETRIES = 5;
+
+    @Autowired
+    private TranslationProviderRouter translationProviderRouter;
+    @Autowired
+    private TranslationMemoryService translationMemoryService;
+    @Autowired
+    private TranslationMetrics translationMetrics;
+
+    @Value("${translate.max-in-flight:8}")
+    private int maxInFlight;
+
+    // How many requests a single translateTexts call may have in flight at once
+    @Value("${translate.parallelism-per-job:4}")
+    private int parallelismPerJob;
+
+    private Semaphore inFlight;
+    private ExecutorService requestExecutor;
+
+    @PostConstruct
+    void init() {
+        inFlight = new Semaphore(maxInFlight, true);
+        AtomicInteger threadCount = new AtomicInteger();
+        requestExecutor = Executors.newFixedThreadPool(maxInFlight, runnable -> {
+            Thread thread = new Thread(runnable, "translate-request-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        requestExecutor.shutdownNow();
+    }
+
+    public String translateText(String text, String sourceLang, String targetLang) throws TranslationException, InterruptedException {
+        if (!SegmentClassifier.isTranslatable(SegmentClassifier.normalize(text))) {
+            return text;
+        }
+        String remembered = translationMemoryService.lookup(text, sourceLang, targetLang);
+        if (remembered != null) {
+            translationMetrics.recordSegmentsSkipped(TranslationMetrics.languagePair(sourceLang, targetLang), TranslationMetrics.SKIP_MEMORY, 1);
+            return remembered;
+        }
+
+        TranslationProvider provider = translationProviderRouter.select(sourceLang, targetLang);
+        String translated = send(provider, List.of(text), sourceLang, targetLang).get(0);
+        if (provider.isCacheable()) {
+            translationMemoryService.store(text, sourceLang, targetLang, translated);
+        }
+        return translated;
+    }
+
+    @Override
+    public List<String> translateTexts(List<String> texts, String sourceLang, String targetLang) throws TranslationException, InterruptedException {
+        return translateTexts(texts, sourceLang, targetLang, (indexes, translations, characters) -> { });
+    }
+
+    @Override
+    public List<String> translateTexts(List<String> texts, String sourceLang, String targetLang, TranslationListener listener)
+            throws TranslationException, InterruptedException {
+        List<String> results = new ArrayList<>(texts);
+        String languagePair = TranslationMetrics.languagePair(sourceLang, targetLang);
+
+        // Blank segments and segments with nothing to translate (numbers, part codes, URLs) are
+        // passed through. The rest is grouped by normalized text so that repeated paragraphs such
+        // as table headers and warnings are translated once.
+        Map<String, Integer> uniqueByText = new HashMap<>();
+        List<String> uniqueTexts = new ArrayList<>();
+        List<List<Integer>> uniqueIndexes = new ArrayList<>();
+        int blank = 0;
+        int untranslatable = 0;
+        int duplicate = 0;
+        long untranslatableCharacters = 0;
+        long duplicateCharacters = 0;
+        for (int i = 0; i < texts.size(); i++) {
+            String text = texts.get(i);
+            if (text == null || text.isBlank()) {
+                blank++;
+                continue;
+            }
+            String normalized = SegmentClassifier.normalize(text);
+            if (!SegmentClassifier.isTranslatable(normalized)) {
+                untranslatable++;
+                untranslatableCharacters += text.length();
+                continue;
+            }
+            Integer unique = uniqueByText.get(normalized);
+            if (unique != null) {
+                uniqueIndexes.get(unique).add(i);
+                duplicate++;
+                duplicateCharacters += text.strip().length();
+                continue;
+            }
+            uniqueByText.put(normalized, uniqueTexts.size());
+            // Surrounding whitespace is kept out of the request and put back around the translation
+            uniqueTexts.add(text.strip());
+            List<Integer> indexes = new ArrayList<>(1);
+            indexes.add(i);
+            uniqueIndexes.add(indexes);
+        }
+
+        // Segments found in the translation memory never reach the provider
+        List<String> uniqueResults = new ArrayList<>(uniqueTexts);
+        List<Integer> pending = new ArrayList<>();
+        int remembered = 0;
+        for (int i = 0; i < uniqueTexts.size(); i++) {
+            String translation = translationMemoryService.lookup(uniqueTexts.get(i), sourceLang, targetLang);
+            if (translation != null) {
+                uniqueResults.set(i, translation);
+                remembered++;
+            } else {
+                pending.add(i);
+            }
+        }
+        translationMetrics.recordSegmentsSkipped(languagePair, TranslationMetrics.SKIP_BLANK, blank);
+        translationMetrics.recordSegmentsSkipped(languagePair, TranslationMetrics.SKIP_UNTRANSLATABLE, untranslatable);
+        translationMetrics.recordSegmentsSkipped(languagePair, TranslationMetrics.SKIP_DUPLICATE, duplicate);
+        translationMetrics.recordSegmentsSkipped(languagePair, TranslationMetrics.SKIP_MEMORY, remembered);
+        translationMetrics.recordCharactersSaved(languagePair, TranslationMetrics.SKIP_UNTRANSLATABLE, untranslatableCharacters);
+        translationMetrics.recordCharactersSaved(languagePair, TranslationMetrics.SKIP_DUPLICATE, duplicateCharacters);
+        if (untranslatable > 0 || duplicate > 0) {
+            logger.debug("Skipped {} untranslatable and {} duplicate segments from {} to {}, saving {} characters",
+                untranslatable, duplicate, sourceLang, targetLang, untranslatableCharacters + duplicateCharacters);
+        }
 
-    @Value("${translate.authkey}")
-    private String authkey;
+        if (!pending.isEmpty()) {
+            // Pack as many segments as fit into each request
+            TranslationProvider provider = translationProviderRouter.select(sourceLang, targetLang);
+            List<List<Integer>> batches = new ArrayList<>();
+            int start = 0;
+            while (start < pending.size()) {
+                int end = start;
+                int requestBytes = 0;
+                while (end < pending.size() && end - start < provider.getMaxBatchSize()) {
+                    int segmentBytes = encodedSize(uniqueTexts.get(pending.get(end)));
+                    if (end > start && requestBytes + segmentBytes > provider.getMaxBatchBytes()) {
+                        break;
+                    }
+                    requestBytes += segmentBytes;
+                    end++;
+                }
+                batches.add(pending.subList(start, end));
+                start = end;
+            }
 
-    public String translateText(String text, String sourceLang, String targetLang) throws DeepLException, InterruptedException {
-//        String text = "We choose to go to the Moon in this decade and do the other things, not because they are easy, but because they are hard, because that goal will serve to organize and measure the best of our energies and skills, because that challenge is one that we are willing to accept, one we are unwilling to postpone, and one which we intend to win, and the others, too.";
+            // Report each request with every segment it translated, duplicates included
+            BatchListener batchListener = (batch, characters) -> {
+                List<Integer> indexes = new ArrayList<>();
+                List<String> translations = new ArrayList<>();
+                for (Integer unique : batch) {
+                    for (Integer index : uniqueIndexes.get(unique)) {
+                        indexes.add(index);
+                        translations.add(rewrap(texts.get(index), uniqueResults.get(unique)));
+                    }
+                }
+                listener.onTranslated(indexes, translations, characters);
+            };
+            if (batches.size() == 1) {
+                translateBatch(provider, batches.get(0), uniqueTexts, uniqueResults, sourceLang, targetLang, batchListener);
+            } else {
+                translateInParallel(provider, batches, uniqueTexts, uniqueResults, sourceLang, targetLang, batchListener);
+            }
+
+            logger.debug("Translated {} segments from {} to {} in {} requests to {}",
+                pending.size(), sourceLang, targetLang, batches.size(), provider.getName());
+        }
+
+        for (int i = 0; i < uniqueIndexes.size(); i++) {
+            for (Integer index : uniqueIndexes.get(i)) {
+                results.set(index, rewrap(texts.get(index), uniqueResults.get(i)));
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public List<TranslationUsageDTO> getProviderUsage() {
+        List<TranslationUsageDTO> usage = new ArrayList<>();
+        for (TranslationProvider provider : translationProviderRouter.getProviders()) {
+            try {
+                usage.add(provider.getUsage());
+            } catch (TranslationException ex) {
+                logger.warn("Could not get usage of provider {}: {}", provider.getName(), ex.getMessage());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return usage;
+    }
+
+    /**
+     * Send the batches concurrently, keeping at most parallelismPerJob of them in flight. Once a
+     * batch fails no further batch is sent, the ones in flight are cancelled and the first failure
+     * is thrown.
+     */
+    private void translateInParallel(TranslationProvider provider, List<List<Integer>> batches, List<String> texts, List<String> results,
+                                     String sourceLang, String targetLang, BatchListener listener) throws TranslationException, InterruptedException {
+        Semaphore window = new Semaphore(parallelismPerJob);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Future<?>> futures = new ArrayList<>(batches.size());
+        try {
+            for (List<Integer> batch : batches) {
+                window.acquire();
+                if (failure.get() != null) {
+                    break;
+                }
+                futures.add(requestExecutor.submit(() -> {
+                    try {
+                        translateBatch(provider, batch, texts, results, sourceLang, targetLang, listener);
+                        return null;
+                    } catch (Exception ex) {
+                        failure.compareAndSet(null, ex);
+                        throw ex;
+                    } finally {
+                        window.release();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                if (failure.get() != null) {
+                    break;
+                }
+                try {
+                    future.get();
+                } catch (ExecutionException ex) {
+                    failure.compareAndSet(null, ex.getCause());
+                }
+            }
+        } catch (InterruptedException ex) {
+            futures.forEach(future -> future.cancel(true));
+            throw ex;
+        }
+
+        Throwable cause = failure.get();
+        if (cause == null) {
+            return;
+        }
+        futures.forEach(future -> future.cancel(true));
+        if (cause instanceof TranslationException translationException) {
+            throw translationException;
+        }
+        if (cause instanceof InterruptedException interruptedException) {
+            throw interruptedException;
+        }
+        throw new RuntimeException(cause);
+    }
+
+    /**
+     * Translate one packed batch and write the results into their slots. Each batch owns
+     * distinct indexes of {@code results}, so concurrent batches never touch the same slot.
+     */
+    private void translateBatch(TranslationProvider provider, List<Integer> batch, List<String> texts, List<String> results,
+                                String sourceLang, String targetLang, BatchListener listener) throws TranslationException, InterruptedException {
+        List<String> segments = new ArrayList<>(batch.size());
+        for (Integer index : batch) {
+            segments.add(texts.get(index));
+        }
+        List<String> translated = send(provider, segments, sourceLang, targetLang);
+        for (int i = 0; i < translated.size(); i++) {
+            int index = batch.get(i);
+            results.set(index, translated.get(i));
+            if (provider.isCacheable()) {
+                translationMemoryService.store(texts.get(index), sourceLang, targetLang, translated.get(i));
+            }
+        }
+        listener.onTranslated(batch, segments.stream().mapToLong(String::length).sum());
+    }
+
+    /**
+     * Send one request to the provider, keeping at most maxInFlight requests open process-wide.
+     * The rate limit is waited for before a slot is taken, and a throttled request gives its slot
+     * back before it waits to be retried.
+     */
+    private List<String> send(TranslationProvider provider, List<String> segments, String sourceLang, String targetLang) throws TranslationException, InterruptedException {
+        int characters = segments.stream().mapToInt(String::length).sum();
+        String languagePair = TranslationMetrics.languagePair(sourceLang, targetLang);
+        for (int attempt = 1; ; attempt++) {
+            provider.awaitCapacity(characters);
+            inFlight.acquire();
+            long started = System.nanoTime();
+            try {
+                List<String> translated = provider.translate(segments, sourceLang, targetLang);
+                translationMetrics.recordProviderLatency(provider.getName(), languagePair, "success", System.nanoTime() - started);
+                translationMetrics.recordCharactersSent(provider.getName(), languagePair, characters);
+                return translated;
+            } catch (TranslationThrottledException ex) {
+                translationMetrics.recordProviderLatency(provider.getName(), languagePair, "throttled", System.nanoTime() - started);
+                if (attempt >= MAX_THROTTLE_RETRIES) {
+                    throw ex;
+                }
+                logger.warn("Provider {} throttled request of {} characters, retrying (attempt {})", provider.getName(), characters, attempt);
+            } catch (TranslationException ex) {
+                translationMetrics.recordProviderLatency(provider.getName(), languagePair, "error", System.nanoTime() - started);
+                throw ex;
+            } finally {
+                inFlight.release();
+            }
+        }
+    }
+
+    /**
+     * Called with the unique segments of a provider request once their results are in place
+     */
+    @FunctionalInterface
+    private interface BatchListener {
+        void onTranslated(List<Integer> batch, long characters);
+    }
+
+    /**
+     * Put the leading and trailing whitespace of the original segment around its translation
+     */
+    private static String rewrap(String original, String translation) {
+        int start = 0;
+        while (start < original.length() && Character.isWhitespace(original.charAt(start))) {
+            start++;
+        }
+        int end = original.length();
+        while (end > start && Character.isWhitespace(original.charAt(end - 1))) {
+            end--;
+        }
+        if (start == 0 && end == original.length()) {
+            return translation;
+        }
+        return original.substring(0, start) + translation + original.substring(end);
+    }
 
-        Translator translator = new Translator(authkey);
-        TextResult result = translator.translateText(text, sourceLang, targetLang);
-        System.out.println(result.getText()); // "Bonjour, le mond
-        return result.getText();
+    /**
+     * Size of a segment once it is form-encoded into the request body as {@code &text=...}
+     */
+    private static int encodedSize(String text) {
+        return URLEncoder.encode(text, StandardCharsets.UTF_8).length() + 6;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,229 @@
+package com.filemanager.service.impl;
+
+import com.filemanager.util.TranslationMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decides which queued translation job gets the next free worker.
+ *
+ * Jobs are queued per user and served by weighted fair queuing: every job gets a virtual finish
+ * tag of {@code max(virtual time, previous tag of the user) + 1 / weight}, and the job with the
+ * smallest tag runs first, so a user with many jobs queued only holds back their own later jobs.
+ * Weights and the number of jobs a single user may run at once depend on the subscription tier,
+ * configured as {@code translate.scheduler.weights=FREE=1,BASIC=2,PRO=4,ENTERPRISE=8}. Jobs of
+ * other tiers can never occupy the last {@code translate.scheduler.reserved-workers} workers,
+ * which keeps the start latency of ENTERPRISE jobs low while the queue is saturated.
+ */
+@Component
+public class TranslationJobScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(TranslationJobScheduler.class);
+    private static final List<String> TIERS = List.of("FREE", "BASIC", "PRO", "ENTERPRISE");
+    private static final String DEFAULT_TIER = "FREE";
+    private static final String PRIORITY_TIER = "ENTERPRISE";
+
+    @Autowired
+    private ThreadPoolTaskExecutor translationJobExecutor;
+    @Autowired
+    private TranslationMetrics translationMetrics;
+
+    @Value("${translate.jobs.workers:2}")
+    private int workers;
+
+    @Value("${translate.jobs.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${translate.scheduler.weights:FREE=1,BASIC=2,PRO=4,ENTERPRISE=8}")
+    private String weightConfig;
+
+    @Value("${translate.scheduler.user-concurrency:FREE=1,BASIC=1,PRO=2,ENTERPRISE=4}")
+    private String userConcurrencyConfig;
+
+    @Value("${translate.scheduler.reserved-workers:1}")
+    private int reservedWorkers;
+
+    private final Map<String, Integer> weights = new HashMap<>();
+    private final Map<String, Integer> userConcurrency = new HashMap<>();
+    private final Map<String, AtomicInteger> queueDepth = new HashMap<>();
+    // Users with queued or running jobs, a user is forgotten once both are done
+    private final Map<Long, UserQueue> users = new HashMap<>();
+
+    private double virtualTime;
+    private int queued;
+    private int running;
+    private int runningStandard;
+
+    @PostConstruct
+    void init() {
+        parseTierValues(weightConfig, weights);
+        parseTierValues(userConcurrencyConfig, userConcurrency);
+        // At least one worker stays available to every tier
+        reservedWorkers = Math.max(0, Math.min(reservedWorkers, workers - 1));
+        for (String tier : TIERS) {
+            AtomicInteger depth = new AtomicInteger();
+            queueDepth.put(tier, depth);
+            translationMetrics.registerQueueDepth(tier, depth);
+        }
+        logger.info("Translation scheduler: {} workers, {} reserved for {}, weights {}, user concurrency {}",
+            workers, reservedWorkers, PRIORITY_TIER, weights, userConcurrency);
+    }
+
+    /**
+     * Queue a job of a user and start it as soon as the fair share of the user allows
+     *
+     * @param userId The ID of the user who submitted the job
+     * @param subscriptionType The subscription tier of the user
+     * @param task The job to run
+     * @throws TaskRejectedException if the queue is full
+     */
+    public synchronized void submit(Long userId, String subscriptionType, Runnable task) {
+        if (queued >= queueCapacity) {
+            throw new TaskRejectedException("Translation queue is full");
+        }
+        String tier = tier(subscriptionType);
+        UserQueue user = users.computeIfAbsent(userId, id -> new UserQueue());
+
+        double startTag = Math.max(virtualTime, user.lastFinishTag);
+        double finishTag = startTag + 1.0 / weights.getOrDefault(tier, 1);
+        user.lastFinishTag = finishTag;
+        user.tasks.add(new QueuedTask(task, tier, startTag, finishTag));
+        queued++;
+        queueDepth.get(tier).incrementAndGet();
+        logger.debug("Queued translation job of user {} ({}), {} jobs waiting", userId, tier, queued);
+
+        dispatch();
+    }
+
+    /**
+     * Start queued jobs while there are free workers they are allowed to use
+     */
+    private void dispatch() {
+        while (running < workers) {
+            boolean standardFull = runningStandard >= workers - reservedWorkers;
+            Long nextUserId = null;
+            UserQueue next = null;
+            for (Map.Entry<Long, UserQueue> entry : users.entrySet()) {
+                UserQueue user = entry.getValue();
+                QueuedTask head = user.tasks.peek();
+                if (head == null || user.running >= userConcurrency.getOrDefault(head.tier, 1)) {
+                    continue;
+                }
+                if (standardFull && !PRIORITY_TIER.equals(head.tier)) {
+                    continue;
+                }
+                if (next == null || head.finishTag < next.tasks.peek().finishTag) {
+                    nextUserId = entry.getKey();
+                    next = user;
+                }
+            }
+            if (next == null) {
+                return;
+            }
+            if (!start(nextUserId, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Hand the head of the queue of a user to the worker pool. A rejected job stays at the head
+     * of the queue and is tried again when a job finishes or another one is submitted.
+     */
+    private boolean start(Long userId, UserQueue user) {
+        QueuedTask task = user.tasks.peek();
+        boolean priority = PRIORITY_TIER.equals(task.tier);
+        try {
+            // finished() needs the monitor held here, so it always sees the counters updated below
+            translationJobExecutor.execute(() -> {
+                try {
+                    task.task.run();
+                } finally {
+                    finished(userId, user, priority);
+                }
+            });
+        } catch (TaskRejectedException ex) {
+            logger.warn("Translation worker pool rejected a job of user {}, keeping it queued", userId, ex);
+            return false;
+        }
+
+        user.tasks.poll();
+        queued--;
+        queueDepth.get(task.tier).decrementAndGet();
+        user.running++;
+        running++;
+        if (!priority) {
+            runningStandard++;
+        }
+        virtualTime = Math.max(virtualTime, task.startTag);
+        translationMetrics.recordQueueWait(task.tier, System.nanoTime() - task.queuedAt);
+        return true;
+    }
+
+    private synchronized void finished(Long userId, UserQueue user, boolean priority) {
+        user.running--;
+        running--;
+        if (!priority) {
+            runningStandard--;
+        }
+        if (user.running == 0 && user.tasks.isEmpty()) {
+            users.remove(userId);
+        }
+        dispatch();
+    }
+
+    private static String tier(String subscriptionType) {
+        if (subscriptionType == null) {
+            return DEFAULT_TIER;
+        }
+        String tier = subscriptionType.toUpperCase(Locale.ROOT);
+        return TIERS.contains(tier) ? tier : DEFAULT_TIER;
+    }
+
+    private static void parseTierValues(String config, Map<String, Integer> values) {
+        for (String entry : config.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2 || !TIERS.contains(parts[0].trim().toUpperCase(Locale.ROOT))) {
+                throw new IllegalStateException("Invalid translation scheduler setting: " + entry);
+            }
+            values.put(parts[0].trim().toUpperCase(Locale.ROOT), Math.max(1, Integer.parseInt(parts[1].trim())));
+        }
+    }
+
+    private static class UserQueue {
+        final Deque<QueuedTask> tasks = new ArrayDeque<>();
+        double lastFinishTag;
+        int running;
+    }
+
+    private static class QueuedTask {
+        final Runnable task;
+        final String tier;
+        final double startTag;
+        final double finishTag;
+        final long queuedAt = System.nanoTime();
+
+        QueuedTask(Runnable task, String tier, double startTag, double finishTag) {
+            this.task = task;
+            this.tier = tier;
+            this.startTag = startTag;
+            this.finishTag = finishTag;
+        }
+    }
+}
@@ -0,0 +1,681 @@
+package com.filemanager.service.impl;
+
+import com.filemanager.exception.QuotaExceededException;
+import com.filemanager.exception.ResourceNotFoundException;
+import com.filemanager.exception.TranslationException;
+import com.filemanager.model.Document;
+import com.filemanager.model.DocumentSegment;
+import com.filemanager.model.DocumentStatus;
+import com.filemanager.model.TranslationCheckpoint;
+import com.filemanager.model.TranslationJob;
+import com.filemanager.model.TranslationJobStatus;
+import com.filemanager.model.User;
+import com.filemanager.model.dto.TranslationJobDTO;
+import com.filemanager.repository.DocumentRepository;
+import com.filemanager.repository.DocumentSegmentRepository;
+import com.filemanager.repository.TranslationCheckpointRepository;
+import com.filemanager.repository.TranslationJobRepository;
+import com.filemanager.repository.UserRepository;
+import com.filemanager.service.ExtractedFile;
+import com.filemanager.service.FileStorageService;
+import com.filemanager.service.OssCacheService;
+import com.filemanager.service.OssService;
+import com.filemanager.service.PdfFileService;
+import com.filemanager.service.SegmentTranslator;
+import com.filemanager.service.TextFileService;
+import com.filemanager.service.TranslateService;
+import com.filemanager.service.TranslationJobService;
+import com.filemanager.service.TranslationProgressListener;
+import com.filemanager.service.TranslationQuotaService;
+import com.filemanager.service.TranslationTarget;
+import com.filemanager.service.WordFileService;
+import com.filemanager.util.HashUtils;
+import com.filemanager.util.TranslationMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+public class TranslationJobServiceImpl implements TranslationJobService {
+    private static final Logger logger = LoggerFactory.getLogger(TranslationJobServiceImpl.class);
+    private static final String DOCX_CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
+    private static final String PDF_CONTENT_TYPE = "application/pdf";
+    private static final String TEXT_CONTENT_TYPE = "text/plain; charset=UTF-8";
+
+    @Autowired
+    private TranslationJobRepository translationJobRepository;
+    @Autowired
+    private DocumentRepository documentRepository;
+    @Autowired
+    private DocumentSegmentRepository documentSegmentRepository;
+    @Autowired
+    private TranslationCheckpointRepository translationCheckpointRepository;
+    @Autowired
+    private WordFileService wordFileService;
+    @Autowired
+    private PdfFileService pdfFileService;
+    @Autowired
+    private TextFileService textFileService;
+    @Autowired
+    private TranslateService translateService;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private OssService ossService;
+    @Autowired
+    private OssCacheService ossCacheService;
+    @Autowired
+    private FileStorageService fileStorageService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TranslationJobScheduler translationJobScheduler;
+    @Autowired
+    private TranslationMetrics translationMetrics;
+    @Autowired
+    private TranslationQuotaService translationQuotaService;
+    @Value("${file.storage-type}")
+    private String storageType;
+
+    // Only one node may resume jobs, turn this off on all others when several share the database
+    @Value("${translate.jobs.resume-on-startup:true}")
+    private boolean resumeOnStartup;
+
+    @Override
+    public void submit(Long jobId) {
+        submit(List.of(jobId));
+    }
+
+    @Override
+    public void submit(List<Long> jobIds) {
+        logger.debug("Submitting translation jobs: {}", jobIds);
+        // Jobs submitted together belong to one user, the first one tells whose share they use
+        Long userId = translationJobRepository.findById(jobIds.get(0))
+                .map(TranslationJob::getUserId)
+                .orElse(null);
+        String subscriptionType = userId == null ? null : userRepository.findById(userId)
+                .map(User::getSubscriptionType)
+                .orElse(null);
+        Map<Long, TranslationQuotaService.Reservation> reservations = new HashMap<>();
+        List<Long> accepted = reserveBeforeQueueing(jobIds, reservations);
+        if (accepted.isEmpty()) {
+            return;
+        }
+        try {
+            translationJobScheduler.submit(userId, subscriptionType, () -> runJobs(accepted, reservations));
+        } catch (TaskRejectedException ex) {
+            logger.error("Translation queue is full, rejecting jobs: {}", accepted);
+            reservations.values().forEach(TranslationQuotaService.Reservation::release);
+            accepted.forEach(jobId -> finishJob(jobId, TranslationJobStatus.FAILED, "Translation queue is full"));
+            throw new RuntimeException("翻译任务队列已满，请稍后重试", ex);
+        }
+    }
+
+    /**
+     * Reserve the quota of jobs whose master was counted by an earlier translation, so a job over
+     * quota fails before it costs a download and a parse. Jobs of a master not counted yet are
+     * reserved by the worker once it has counted the file.
+     *
+     * @return The jobs to queue
+     */
+    private List<Long> reserveBeforeQueueing(List<Long> jobIds, Map<Long, TranslationQuotaService.Reservation> reservations) {
+        List<TranslationJob> jobs = new ArrayList<>(jobIds.size());
+        for (Long jobId : jobIds) {
+            translationJobRepository.findById(jobId).ifPresent(jobs::add);
+        }
+        Long characters = jobs.isEmpty() ? null : documentRepository.findById(jobs.get(0).getMasterDocumentId())
+                .map(Document::getCharacterCount)
+                .orElse(null);
+        if (characters == null) {
+            return jobIds;
+        }
+        List<Long> accepted = new ArrayList<>(jobs.size());
+        for (TranslationJob job : jobs) {
+            if (reserveQuota(job, characters, reservations)) {
+                accepted.add(job.getId());
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * Put back the jobs that were queued or running when the application stopped. Running jobs
+     * continue from their checkpoints instead of starting over.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedJobs() {
+        if (!resumeOnStartup) {
+            return;
+        }
+        List<TranslationJob> interrupted = translationJobRepository.findByStatusInOrderById(
+            List.of(TranslationJobStatus.QUEUED, TranslationJobStatus.RUNNING));
+        if (interrupted.isEmpty()) {
+            return;
+        }
+
+        // Jobs of one user for one master were submitted together and share a parse of the file
+        Map<String, List<Long>> groups = new LinkedHashMap<>();
+        for (TranslationJob job : interrupted) {
+            groups.computeIfAbsent(job.getMasterDocumentId() + ":" + job.getUserId(), key -> new ArrayList<>())
+                .add(job.getId());
+        }
+        for (List<Long> jobIds : groups.values()) {
+            try {
+                submit(jobIds);
+            } catch (RuntimeException ex) {
+                logger.error("Could not resume translation jobs {}", jobIds, ex);
+            }
+        }
+        logger.info("Resumed {} interrupted translation jobs", interrupted.size());
+    }
+
+    @Override
+    public TranslationJobDTO getJob(Long jobId) {
+        logger.debug("Fetching translation job: {}", jobId);
+        TranslationJob job = translationJobRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Translation job not found"));
+        return convertToDTO(job);
+    }
+
+    /**
+     * Run jobs that translate the same master file: it is fetched and parsed once, then every
+     * target language is translated concurrently and stored as its own document file
+     */
+    private void runJobs(List<Long> jobIds, Map<Long, TranslationQuotaService.Reservation> reserved) {
+        // Whatever is reserved is given back at the end, even when a later reservation failed
+        Map<Long, TranslationQuotaService.Reservation> reservations = new HashMap<>(reserved);
+        List<TranslationJob> jobs = new ArrayList<>(jobIds.size());
+        for (Long jobId : jobIds) {
+            TranslationJob job = translationJobRepository.findById(jobId).orElse(null);
+            if (job == null) {
+                logger.warn("Translation job {} no longer exists", jobId);
+                continue;
+            }
+            job.setStatus(TranslationJobStatus.RUNNING);
+            job.setStartedAt(LocalDateTime.now());
+            // A resumed job counts its progress again, checkpointed segments included
+            job.setTranslatedSegments(0);
+            jobs.add(translationJobRepository.save(job));
+            logger.info("Translation job {} started: document {} from {} to {}",
+                jobId, job.getMasterDocumentId(), job.getSourceLang(), job.getTargetLang());
+        }
+        if (jobs.isEmpty()) {
+            reservations.values().forEach(TranslationQuotaService.Reservation::release);
+            return;
+        }
+
+        Long masterDocumentId = jobs.get(0).getMasterDocumentId();
+        Path source = null;
+        boolean temporarySource = false;
+        boolean pinnedSource = false;
+        ExtractedFile extracted = null;
+        List<Path> outputs = new ArrayList<>(jobs.size());
+        try {
+            Document master = documentRepository.findById(masterDocumentId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Document not found"));
+            String fileType = TranslationMetrics.fileType(master.getFileName());
+
+            long started = System.nanoTime();
+            // Pinned, translating may take longer than the cache keeps evicted files around
+            source = "oss".equals(storageType) ? ossCacheService.pinFile(master.getFileName()) : null;
+            pinnedSource = source != null;
+            if (source == null) {
+                source = fetchSourceFile(master);
+                temporarySource = "oss".equals(storageType);
+            }
+            // Every job of the batch waited for the shared download
+            long downloadNanos = System.nanoTime() - started;
+            for (TranslationJob job : jobs) {
+                translationMetrics.recordStage(TranslationMetrics.STAGE_DOWNLOAD, languagePair(job), fileType, downloadNanos);
+            }
+
+            // The file is extracted once for the count and for every language
+            extracted = extract(master, source, stageListener(jobs, fileType));
+
+            // Every job reserves the whole file up front, a job over quota never reaches the provider
+            long characters;
+            if (master.getCharacterCount() != null) {
+                characters = master.getCharacterCount();
+            } else {
+                characters = extracted.countCharacters();
+                // Later jobs of this file reserve their quota before they are queued
+                transactionTemplate.executeWithoutResult(status ->
+                    documentRepository.updateCharacterCount(master.getId(), master.getFileName(), characters));
+            }
+            jobs.removeIf(job -> !reservations.containsKey(job.getId()) && !reserveQuota(job, characters, reservations));
+            if (jobs.isEmpty()) {
+                return;
+            }
+
+            // Every job writes its own file, so concurrent jobs never share an output path
+            List<IncrementalSegmentTranslator> translators = new ArrayList<>(jobs.size());
+            List<TranslationTarget> targets = new ArrayList<>(jobs.size());
+            for (TranslationJob job : jobs) {
+                Path output = Files.createTempFile("translated-" + job.getId() + "-", outputExtension(master));
+                outputs.add(output);
+                // Text files can be far larger than the memory of the worker, their segments are not kept
+                IncrementalSegmentTranslator translator = new IncrementalSegmentTranslator(job, reservations.get(job.getId()),
+                    !"text".equals(master.getFileType()));
+                translators.add(translator);
+                targets.add(new TranslationTarget(job.getTargetLang(), output.toString(), translator,
+                    progressListener(job.getId(), languagePair(job), fileType)));
+            }
+
+            extracted.translate(targets);
+
+            for (int i = 0; i < jobs.size(); i++) {
+                completeJob(jobs.get(i), master, fileType, translators.get(i), targets.get(i), outputs.get(i));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            logger.warn("Translation jobs {} interrupted", jobIds);
+            jobs.forEach(job -> finishJob(job.getId(), TranslationJobStatus.FAILED, "Interrupted"));
+        } catch (Exception ex) {
+            logger.error("Translation jobs {} failed", jobIds, ex);
+            jobs.forEach(job -> finishJob(job.getId(), TranslationJobStatus.FAILED, ex.getMessage()));
+        } finally {
+            reservations.values().forEach(TranslationQuotaService.Reservation::release);
+            if (extracted != null) {
+                extracted.close();
+            }
+            if (temporarySource) {
+                deleteTemporaryFile(source);
+            } else if (pinnedSource) {
+                ossCacheService.unpinFile(source);
+            }
+            outputs.forEach(this::deleteTemporaryFile);
+        }
+    }
+
+    /**
+     * Save the segments and the translated file of one target, or record why it failed
+     */
+    private void completeJob(TranslationJob job, Document master, String fileType, IncrementalSegmentTranslator translator,
+                             TranslationTarget target, Path output) {
+        if (target.getFailure() != null) {
+            logger.error("Translation job {} failed", job.getId(), target.getFailure());
+            finishJob(job.getId(), TranslationJobStatus.FAILED, target.getFailure().getMessage());
+            return;
+        }
+        try {
+            String languagePair = languagePair(job);
+            if (translator.keepSegments) {
+                saveSegments(job.getDocumentId(), translator.segments);
+            }
+            translationMetrics.recordSegmentsSkipped(languagePair, TranslationMetrics.SKIP_REUSED, translator.reused);
+
+            long started = System.nanoTime();
+            storeTranslatedFile(job, master, output);
+            translationMetrics.recordStage(TranslationMetrics.STAGE_UPLOAD, languagePair, fileType, System.nanoTime() - started);
+            clearCheckpoints(job.getDocumentId());
+
+            finishJob(job.getId(), TranslationJobStatus.COMPLETED, null);
+            logger.info("Translation job {} completed, {} of {} segments reused from the previous translation, {} resumed from checkpoints",
+                job.getId(), translator.reused, translator.segments.size(), translator.resumed.get());
+        } catch (Exception ex) {
+            logger.error("Translation job {} failed", job.getId(), ex);
+            finishJob(job.getId(), TranslationJobStatus.FAILED, ex.getMessage());
+        }
+    }
+
+    private ExtractedFile extract(Document master, Path source, TranslationProgressListener listener) throws IOException {
+        if ("pdf".equals(master.getFileType())) {
+            return pdfFileService.extractPdfFile(source.toString(), listener);
+        }
+        if ("text".equals(master.getFileType())) {
+            return textFileService.extractTextFile(source.toString(), listener);
+        }
+        return wordFileService.extractWordFile(source.toString(), listener);
+    }
+
+    /**
+     * Reserve the characters of a job, failing it if its user does not have them left
+     */
+    private boolean reserveQuota(TranslationJob job, long characters, Map<Long, TranslationQuotaService.Reservation> reservations) {
+        try {
+            reservations.put(job.getId(), translationQuotaService.reserve(job.getUserId(), characters));
+            return true;
+        } catch (QuotaExceededException ex) {
+            logger.warn("Translation job {} rejected: {}", job.getId(), ex.getMessage());
+            finishJob(job.getId(), TranslationJobStatus.FAILED, ex.getMessage());
+            return false;
+        }
+    }
+
+    private static String languagePair(TranslationJob job) {
+        return TranslationMetrics.languagePair(job.getSourceLang(), job.getTargetLang());
+    }
+
+    /**
+     * Store the translated file and point the translated document at it, replacing the file of a
+     * previous translation run
+     */
+    private void storeTranslatedFile(TranslationJob job, Document master, Path output) throws IOException {
+        Document translation = documentRepository.findById(job.getDocumentId())
+                .orElseThrow(() -> new ResourceNotFoundException("Document not found"));
+
+        String fileName = UUID.randomUUID().toString() + "_" + translatedFileName(master.getFileName(), outputExtension(master));
+        String filePath = fileStorageService.store(output, fileName, outputContentType(master));
+        logger.debug("Translated file of job {} stored as {}", job.getId(), fileName);
+
+        String oldFileName = translation.getFileName();
+        String oldFilePath = translation.getFilePath();
+        long fileSize = Files.size(output);
+        // The document may have been deleted while the file was uploading, saving the loaded entity would revive it
+        Integer updated = transactionTemplate.execute(status ->
+                documentRepository.updateFileIfNotDeleted(translation.getId(), fileName, filePath, fileSize));
+        if (updated == null || updated == 0) {
+            logger.info("Translated document {} was deleted while job {} stored its file", translation.getId(), job.getId());
+            fileStorageService.delete(fileName, filePath);
+            return;
+        }
+
+        // Translations created before they got their own file still point at the master file
+        if (oldFileName != null && !oldFileName.equals(master.getFileName())) {
+            try {
+                fileStorageService.delete(oldFileName, oldFilePath);
+            } catch (IOException ex) {
+                logger.warn("Could not delete previous translated file: {}", oldFileName, ex);
+            }
+        }
+    }
+
+    /**
+     * The original name of the master file with the upload prefix removed and the given extension
+     */
+    private static String translatedFileName(String masterFileName, String extension) {
+        String name = masterFileName.substring(masterFileName.indexOf('_') + 1);
+        int dot = name.lastIndexOf('.');
+        return (dot > 0 ? name.substring(0, dot) : name) + extension;
+    }
+
+    /**
+     * Word files are always written as .docx, PDF and text files keep their format
+     */
+    private static String outputExtension(Document master) {
+        if ("pdf".equals(master.getFileType())) {
+            return ".pdf";
+        }
+        if ("text".equals(master.getFileType())) {
+            return ".txt";
+        }
+        return ".docx";
+    }
+
+    private static String outputContentType(Document master) {
+        if ("pdf".equals(master.getFileType())) {
+            return PDF_CONTENT_TYPE;
+        }
+        if ("text".equals(master.getFileType())) {
+            return TEXT_CONTENT_TYPE;
+        }
+        return DOCX_CONTENT_TYPE;
+    }
+
+    private void deleteTemporaryFile(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            logger.warn("Could not delete temporary file: {}", file, ex);
+        }
+    }
+
+    /**
+     * Mark a job as finished and move its translated document out of IN_PROGRESS
+     */
+    private void finishJob(Long jobId, TranslationJobStatus status, String errorMessage) {
+        translationJobRepository.findById(jobId).ifPresent(job -> {
+            job.setStatus(status);
+            job.setErrorMessage(errorMessage != null && errorMessage.length() > 255
+                ? errorMessage.substring(0, 255) : errorMessage);
+            job.setFinishedAt(LocalDateTime.now());
+            translationJobRepository.save(job);
+
+            documentRepository.findById(job.getDocumentId()).ifPresent(document -> {
+                if (status == TranslationJobStatus.COMPLETED) {
+                    document.setStatus(DocumentStatus.REVIEWING);
+                } else if (document.getStatus() != DocumentStatus.NEEDS_UPDATE) {
+                    // A failed refresh leaves the document flagged as outdated
+                    document.setStatus(DocumentStatus.DRAFT);
+                }
+                documentRepository.save(document);
+            });
+        });
+    }
+
+    /**
+     * Replace the stored segments of a translated document with those of the latest run
+     */
+    private void saveSegments(Long documentId, List<DocumentSegment> segments) {
+        transactionTemplate.executeWithoutResult(status -> {
+            documentSegmentRepository.deleteByDocumentId(documentId);
+            documentSegmentRepository.saveAll(segments);
+        });
+    }
+
+    private void clearCheckpoints(Long documentId) {
+        transactionTemplate.executeWithoutResult(status -> translationCheckpointRepository.deleteByDocumentId(documentId));
+    }
+
+    /**
+     * Records the stages shared by a batch, loading and extracting the master, for every job of it
+     */
+    private TranslationProgressListener stageListener(List<TranslationJob> jobs, String fileType) {
+        return new TranslationProgressListener() {
+            @Override
+            public void onSegmentsFound(int total) {
+            }
+
+            @Override
+            public void onSegmentsTranslated(int count) {
+            }
+
+            @Override
+            public void onStageCompleted(String stage, long nanos) {
+                for (TranslationJob job : jobs) {
+                    translationMetrics.recordStage(stage, languagePair(job), fileType, nanos);
+                }
+            }
+        };
+    }
+
+    private TranslationProgressListener progressListener(Long jobId, String languagePair, String fileType) {
+        return new TranslationProgressListener() {
+            @Override
+            public void onSegmentsFound(int total) {
+                translationJobRepository.updateTotalSegments(jobId, total);
+            }
+
+            @Override
+            public void onSegmentsTranslated(int count) {
+                translationJobRepository.addTranslatedSegments(jobId, count);
+            }
+
+            @Override
+            public void onStageCompleted(String stage, long nanos) {
+                translationMetrics.recordStage(stage, languagePair, fileType, nanos);
+            }
+        };
+    }
+
+    /**
+     * Get a local path to the master file, downloading it from OSS into a temporary file if needed.
+     * Only used for OSS objects too large for the OSS cache.
+     */
+    private Path fetchSourceFile(Document master) throws IOException {
+        if (!"oss".equals(storageType)) {
+            return Paths.get(master.getFilePath());
+        }
+
+        Path temp = Files.createTempFile("translate-", "_" + master.getFileName());
+        Resource resource = ossService.downloadFile(master.getFileName());
+        try (InputStream in = resource.getInputStream()) {
+            Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+        }
+        logger.debug("Master file {} downloaded to {}", master.getFileName(), temp);
+        return temp;
+    }
+
+    /**
+     * Translates only the segments whose master text changed since the previous translation of
+     * the document, reusing the stored translation for every unchanged segment. Segments that go
+     * to the provider are checkpointed per request, so an interrupted job resumes where it stopped.
+     */
+    private class IncrementalSegmentTranslator implements SegmentTranslator {
+        private final TranslationJob job;
+        private final TranslationQuotaService.Reservation reservation;
+        private final Map<String, String> previous = new HashMap<>();
+        private final List<DocumentSegment> segments = new ArrayList<>();
+        private final boolean keepSegments;
+        // Text files translate several groups at once, the other counters are only used one group at a time
+        private final AtomicInteger resumed = new AtomicInteger();
+        private int reused;
+
+        IncrementalSegmentTranslator(TranslationJob job, TranslationQuotaService.Reservation reservation, boolean keepSegments) {
+            this.job = job;
+            this.reservation = reservation;
+            this.keepSegments = keepSegments;
+            if (!keepSegments) {
+                return;
+            }
+            for (DocumentSegment segment : documentSegmentRepository.findByDocumentIdOrderBySegmentIndex(job.getDocumentId())) {
+                previous.put(segment.getSourceHash(), segment.getTranslatedText());
+            }
+        }
+
+        @Override
+        public List<String> translate(List<String> texts) throws TranslationException, InterruptedException {
+            List<String> results = new ArrayList<>(texts);
+            List<String> hashes = new ArrayList<>(texts.size());
+            List<Integer> changed = new ArrayList<>();
+            for (int i = 0; i < texts.size(); i++) {
+                String hash = HashUtils.sha256Hex(texts.get(i));
+                hashes.add(hash);
+                String translated = previous.get(hash);
+                if (translated != null) {
+                    results.set(i, translated);
+                    reused++;
+                } else {
+                    changed.add(i);
+                }
+            }
+
+            if (!changed.isEmpty()) {
+                translateChanged(texts, hashes, changed, results);
+            }
+
+            if (keepSegments) {
+                for (int i = 0; i < texts.size(); i++) {
+                    segments.add(new DocumentSegment(job.getDocumentId(), segments.size(), hashes.get(i), results.get(i)));
+                }
+            }
+            return results;
+        }
+
+        /**
+         * Take what an earlier run of the document already translated from the checkpoints, send
+         * the rest to the provider and checkpoint it
+         */
+        private void translateChanged(List<String> texts, List<String> hashes, List<Integer> changed, List<String> results)
+                throws TranslationException, InterruptedException {
+            Set<String> changedHashes = new HashSet<>();
+            for (Integer index : changed) {
+                changedHashes.add(hashes.get(index));
+            }
+            Map<String, String> checkpointed = new HashMap<>();
+            for (TranslationCheckpoint checkpoint : translationCheckpointRepository.findByDocumentIdAndSourceHashIn(job.getDocumentId(), changedHashes)) {
+                checkpointed.put(checkpoint.getSourceHash(), checkpoint.getTranslatedText());
+            }
+
+            List<Integer> pending = new ArrayList<>();
+            List<String> pendingTexts = new ArrayList<>();
+            for (Integer index : changed) {
+                String translated = checkpointed.get(hashes.get(index));
+                if (translated != null) {
+                    results.set(index, translated);
+                    resumed.incrementAndGet();
+                } else {
+                    pending.add(index);
+                    pendingTexts.add(texts.get(index));
+                }
+            }
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            // Every provider request is charged and checkpointed as soon as it returns, a crash
+            // loses at most the requests in flight. What the memory or deduplication served is neither.
+            List<String> translated = translateService.translateTexts(pendingTexts, job.getSourceLang(), job.getTargetLang(),
+                (indexes, translations, characters) -> {
+                    reservation.consume(characters);
+                    checkpoint(indexes, translations, pending, hashes);
+                });
+            for (int i = 0; i < pending.size(); i++) {
+                results.set(pending.get(i), translated.get(i));
+            }
+        }
+
+        /**
+         * Save the translations of one provider request, indexes point into the pending segments
+         */
+        private void checkpoint(List<Integer> indexes, List<String> translations, List<Integer> pending, List<String> hashes) {
+            Map<String, TranslationCheckpoint> checkpoints = new LinkedHashMap<>();
+            for (int i = 0; i < indexes.size(); i++) {
+                String hash = hashes.get(pending.get(indexes.get(i)));
+                checkpoints.putIfAbsent(hash, new TranslationCheckpoint(job.getDocumentId(), job.getId(), hash, translations.get(i)));
+            }
+            translationCheckpointRepository.saveAll(checkpoints.values());
+        }
+    }
+
+    private TranslationJobDTO convertToDTO(TranslationJob job) {
+        TranslationJobDTO dto = new TranslationJobDTO();
+        dto.setJobId(job.getId());
+        dto.setDocumentId(job.getDocumentId());
+        dto.setMasterDocumentId(job.getMasterDocumentId());
+        dto.setSourceLang(job.getSourceLang());
+        dto.setTargetLang(job.getTargetLang());
+        dto.setStatus(job.getStatus().name());
+        dto.setTotalSegments(job.getTotalSegments());
+        dto.setTranslatedSegments(job.getTranslatedSegments());
+        if (job.getStatus() == TranslationJobStatus.COMPLETED) {
+            dto.setProgress(100.0);
+        } else if (job.getTotalSegments() != null && job.getTotalSegments() > 0) {
+            dto.setProgress(Math.min(100.0, job.getTranslatedSegments() * 100.0 / job.getTotalSegments()));
+        } else {
+            dto.setProgress(0.0);
+        }
+        dto.setErrorMessage(job.getErrorMessage());
+        dto.setCreatedAt(job.getCreatedAt());
+        dto.setStartedAt(job.getStartedAt());
+        dto.setFinishedAt(job.getFinishedAt());
+        return dto;
+    }
+}
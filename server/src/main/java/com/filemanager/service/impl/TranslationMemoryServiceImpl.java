@@ -0,0 +1,121 @@
+package com.filemanager.service.impl;
+
+import com.filemanager.model.dto.TranslationMemoryStatsDTO;
+import com.filemanager.service.TranslationMemoryService;
+import com.filemanager.util.HashUtils;
+import com.filemanager.util.MappedTranslationStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+@Service
+public class TranslationMemoryServiceImpl implements TranslationMemoryService {
+    private static final Logger logger = LoggerFactory.getLogger(TranslationMemoryServiceImpl.class);
+
+    @Value("${translate.memory.lru-size:10000}")
+    private int lruSize;
+    @Value("${translate.memory.store-path:data/translation-memory.dat}")
+    private String storePath;
+    @Value("${translate.memory.store-max-bytes:1073741824}")
+    private long storeMaxBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder charactersSaved = new LongAdder();
+
+    private Map<String, String> lru;
+    private MappedTranslationStore store;
+
+    @PostConstruct
+    void init() {
+        lru = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > lruSize;
+            }
+        };
+        try {
+            store = new MappedTranslationStore(Paths.get(storePath), storeMaxBytes);
+        } catch (IOException ex) {
+            // The in-process LRU still works without the persistent store
+            logger.error("Could not open translation store at {}, continuing without it", storePath, ex);
+        }
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Override
+    public String lookup(String text, String sourceLang, String targetLang) {
+        String key = key(text, sourceLang, targetLang);
+        String translation;
+        synchronized (lru) {
+            translation = lru.get(key);
+        }
+        if (translation == null && store != null) {
+            translation = store.get(key);
+            if (translation != null) {
+                synchronized (lru) {
+                    lru.put(key, translation);
+                }
+            }
+        }
+
+        if (translation != null) {
+            hits.increment();
+            charactersSaved.add(text.length());
+        } else {
+            misses.increment();
+        }
+        return translation;
+    }
+
+    @Override
+    public void store(String text, String sourceLang, String targetLang, String translation) {
+        String key = key(text, sourceLang, targetLang);
+        synchronized (lru) {
+            lru.put(key, translation);
+        }
+        if (store != null) {
+            store.put(key, translation);
+        }
+    }
+
+    @Override
+    public TranslationMemoryStatsDTO getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long lookups = hitCount + missCount;
+        int cached;
+        synchronized (lru) {
+            cached = lru.size();
+        }
+        return new TranslationMemoryStatsDTO(
+            hitCount,
+            missCount,
+            lookups == 0 ? 0.0 : (double) hitCount / lookups,
+            charactersSaved.sum(),
+            cached,
+            store != null ? store.size() : 0,
+            store != null ? store.bytesUsed() : 0
+        );
+    }
+
+    private String key(String text, String sourceLang, String targetLang) {
+        String source = sourceLang == null ? "auto" : sourceLang.toUpperCase();
+        return HashUtils.sha256Hex(text) + ":" + source + ":" + targetLang.toUpperCase();
+    }
+}
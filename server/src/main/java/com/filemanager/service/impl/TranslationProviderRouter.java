@@ -0,0 +1,99 @@
+package com.filemanager.service.impl;
+
+import com.filemanager.exception.TranslationException;
+import com.filemanager.service.TranslationProvider;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Picks the translation provider for a language pair.
+ *
+ * Routes are configured as {@code translate.provider.routes=EN:ZH=local,*:JA=deepl}, where the
+ * source may be {@code *} for any source language. A pair without a route goes to
+ * {@code translate.provider.default}. There is no fallback to another provider: if the chosen
+ * provider does not support the pair the translation fails, so placeholder output from the local
+ * engine can never be stored as a real translation.
+ */
+@Component
+public class TranslationProviderRouter {
+    private static final Logger logger = LoggerFactory.getLogger(TranslationProviderRouter.class);
+    private static final String ANY_SOURCE = "*";
+
+    @Autowired
+    private List<TranslationProvider> providers;
+
+    @Value("${translate.provider.default:deepl}")
+    private String defaultProvider;
+
+    @Value("${translate.provider.routes:}")
+    private String routeConfig;
+
+    private final Map<String, TranslationProvider> providersByName = new LinkedHashMap<>();
+    private final Map<String, TranslationProvider> routes = new HashMap<>();
+
+    @PostConstruct
+    void init() {
+        for (TranslationProvider provider : providers) {
+            providersByName.put(provider.getName(), provider);
+        }
+        provider(defaultProvider);
+
+        for (String route : routeConfig.split(",")) {
+            if (route.isBlank()) {
+                continue;
+            }
+            String[] parts = route.trim().split("=");
+            String[] languages = parts[0].split(":");
+            if (parts.length != 2 || languages.length != 2) {
+                throw new IllegalStateException("Invalid translation route: " + route);
+            }
+            routes.put(routeKey(languages[0], languages[1]), provider(parts[1].trim()));
+        }
+        logger.info("Translation providers: {}, default {}, {} routes", providersByName.keySet(), defaultProvider, routes.size());
+    }
+
+    /**
+     * The provider that translates from sourceLang to targetLang
+     */
+    public TranslationProvider select(String sourceLang, String targetLang) throws TranslationException {
+        String source = sourceLang == null || sourceLang.isBlank() ? ANY_SOURCE : sourceLang;
+        TranslationProvider routed = routes.get(routeKey(source, targetLang));
+        if (routed == null) {
+            routed = routes.get(routeKey(ANY_SOURCE, targetLang));
+        }
+        if (routed == null) {
+            routed = providersByName.get(defaultProvider);
+        }
+        if (routed.supports(sourceLang, targetLang)) {
+            return routed;
+        }
+        logger.warn("Provider {} does not support {} to {}", routed.getName(), source, targetLang);
+        throw new TranslationException("Translation provider " + routed.getName() + " does not support " + source + " to " + targetLang);
+    }
+
+    public List<TranslationProvider> getProviders() {
+        return List.copyOf(providersByName.values());
+    }
+
+    private TranslationProvider provider(String name) {
+        TranslationProvider provider = providersByName.get(name);
+        if (provider == null) {
+            throw new IllegalStateException("Unknown translation provider: " + name);
+        }
+        return provider;
+    }
+
+    private static String routeKey(String sourceLang, String targetLang) {
+        return sourceLang.trim().toUpperCase(Locale.ROOT) + ":" + targetLang.trim().toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,205 @@
+package com.filemanager.service.impl;
+
+import com.filemanager.exception.QuotaExceededException;
+import com.filemanager.model.User;
+import com.filemanager.model.UserStats;
+import com.filemanager.repository.UserRepository;
+import com.filemanager.repository.UserStatsRepository;
+import com.filemanager.service.TranslationQuotaService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Character quota of translation jobs, stored as total_word_count (the allowance, falling back to
+ * the subscription default when unset) and total_word_used in user_stats.
+ *
+ * Consumption is counted in a striped {@link LongAdder} per user so that translation workers never
+ * contend on a lock or a row. A scheduled flush moves the counted characters to user_stats with one
+ * relative UPDATE per user. A character being flushed is always counted in at least one of
+ * unflushed, flushing and the stored total, so the remaining quota is never overestimated.
+ */
+@Service
+public class TranslationQuotaServiceImpl implements TranslationQuotaService {
+    private static final Logger logger = LoggerFactory.getLogger(TranslationQuotaServiceImpl.class);
+
+    @Autowired
+    private UserStatsRepository userStatsRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final Map<Long, UserQuota> quotas = new ConcurrentHashMap<>();
+
+    // Jobs without a user are not accounted
+    private static final Reservation NO_RESERVATION = new Reservation() {
+        @Override
+        public void consume(long characters) {
+        }
+
+        @Override
+        public void release() {
+        }
+    };
+
+    @Override
+    public void checkAvailable(Long userId) {
+        if (userId != null && getRemaining(userId) <= 0) {
+            logger.warn("Translation quota of user {} is used up", userId);
+            throw new QuotaExceededException("翻译字数额度已用完");
+        }
+    }
+
+    @Override
+    public Reservation reserve(Long userId, long characters) {
+        if (userId == null) {
+            return NO_RESERVATION;
+        }
+        UserQuota quota = quota(userId);
+        // Reservations of one user are serialized, consumption never waits for them
+        synchronized (quota) {
+            long remaining = remaining(userId, quota);
+            if (characters > remaining) {
+                logger.warn("Translation quota of user {} exceeded: {} characters needed, {} left", userId, characters, remaining);
+                throw new QuotaExceededException("翻译字数额度不足，需要 " + characters + " 字符，剩余 " + Math.max(0, remaining) + " 字符");
+            }
+            quota.reserved.addAndGet(characters);
+        }
+        logger.debug("Reserved {} characters for user {}", characters, userId);
+        return new QuotaReservation(quota, characters);
+    }
+
+    @Override
+    public long getRemaining(Long userId) {
+        return remaining(userId, quota(userId));
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${translate.quota.flush-interval-ms:5000}")
+    public void flush() {
+        // Move each pending count to flushing before taking it out of unflushed
+        Map<Long, Long> deltas = new HashMap<>();
+        quotas.forEach((userId, quota) -> {
+            long delta = quota.unflushed.sum();
+            if (delta > 0) {
+                quota.flushing.addAndGet(delta);
+                quota.unflushed.add(-delta);
+                deltas.put(userId, delta);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> deltas.forEach((userId, delta) -> {
+                if (userStatsRepository.addWordUsed(userId, delta) == 0) {
+                    createUserStats(userId, delta);
+                }
+            }));
+            logger.debug("Flushed translation usage of {} users", deltas.size());
+        } catch (RuntimeException ex) {
+            // Put the counts back, the next flush retries them
+            logger.error("Failed to flush translation usage of {} users", deltas.size(), ex);
+            deltas.forEach((userId, delta) -> quotas.get(userId).unflushed.add(delta));
+        } finally {
+            deltas.forEach((userId, delta) -> quotas.get(userId).flushing.addAndGet(-delta));
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flush();
+    }
+
+    private UserQuota quota(Long userId) {
+        return quotas.computeIfAbsent(userId, id -> new UserQuota());
+    }
+
+    private long remaining(Long userId, UserQuota quota) {
+        // Read in the order characters travel, so one in transit is counted twice rather than missed
+        long pending = quota.unflushed.sum() + quota.flushing.get();
+        UserStats stats = userStatsRepository.findByUserId(userId);
+        long stored = stats != null && stats.getTotalWordUsed() != null ? stats.getTotalWordUsed() : 0L;
+        return characterLimit(userId, stats) - stored - pending - quota.reserved.get();
+    }
+
+    private long characterLimit(Long userId, UserStats stats) {
+        if (stats != null && stats.getTotalWordCount() != null && stats.getTotalWordCount() > 0) {
+            return stats.getTotalWordCount();
+        }
+        String subscriptionType = userRepository.findById(userId)
+            .map(User::getSubscriptionType)
+            .orElse("FREE");
+        return getCharacterLimitBySubscription(subscriptionType);
+    }
+
+    private void createUserStats(Long userId, long used) {
+        UserStats stats = new UserStats();
+        stats.setUserId(userId);
+        stats.setTotalWordCount(0L);
+        stats.setTotalWordUsed(used);
+        stats.setLanguageCount(0);
+        stats.setStorageUsed(0L);
+        userStatsRepository.save(stats);
+    }
+
+    private Long getCharacterLimitBySubscription(String subscriptionType) {
+        // 根据订阅类型返回每个用户的翻译字数额度（单位：字符）
+        return switch (subscriptionType == null ? "FREE" : subscriptionType) {
+            case "BASIC" -> 1_000_000L;
+            case "PRO" -> 5_000_000L;
+            case "ENTERPRISE" -> 50_000_000L;
+            default -> 100_000L;                  // 100K for free users
+        };
+    }
+
+    private static class QuotaReservation implements Reservation {
+        private final UserQuota quota;
+        // Reserved characters not consumed yet
+        private final AtomicLong left;
+
+        QuotaReservation(UserQuota quota, long characters) {
+            this.quota = quota;
+            this.left = new AtomicLong(characters);
+        }
+
+        @Override
+        public void consume(long characters) {
+            if (characters <= 0) {
+                return;
+            }
+            // Count the use before dropping the reservation, so the characters are never missed in between
+            quota.unflushed.add(characters);
+            long taken = left.getAndUpdate(current -> current - Math.min(current, characters));
+            quota.reserved.addAndGet(-Math.min(taken, characters));
+        }
+
+        @Override
+        public void release() {
+            long rest = left.getAndSet(0);
+            if (rest > 0) {
+                quota.reserved.addAndGet(-rest);
+            }
+        }
+    }
+
+    private static class UserQuota {
+        // Consumed but not yet flushed, striped so concurrent workers do not contend
+        final LongAdder unflushed = new LongAdder();
+        // Taken out of unflushed by a flush that has not committed yet
+        final AtomicLong flushing = new AtomicLong();
+        final AtomicLong reserved = new AtomicLong();
+    }
+}
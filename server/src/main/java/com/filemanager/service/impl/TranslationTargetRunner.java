@@ -0,0 +1,56 @@
+package com.filemanager.service.impl;
+
+import com.filemanager.service.TranslationTarget;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the targets of a multi-language file translation concurrently. A target that throws has
+ * its failure recorded and does not stop the others.
+ */
+@Component
+public class TranslationTargetRunner {
+    private static final Logger logger = LoggerFactory.getLogger(TranslationTargetRunner.class);
+
+    @Autowired
+    private ThreadPoolTaskExecutor translationTargetExecutor;
+
+    @FunctionalInterface
+    public interface TargetTask {
+        void run(TranslationTarget target) throws Exception;
+    }
+
+    public void runAll(List<TranslationTarget> targets, TargetTask task) throws InterruptedException {
+        List<Future<?>> futures = new ArrayList<>(targets.size());
+        try {
+            for (TranslationTarget target : targets) {
+                futures.add(translationTargetExecutor.submit(() -> {
+                    try {
+                        task.run(target);
+                    } catch (Exception ex) {
+                        logger.error("Failed to translate into {}", target.getOutputFile(), ex);
+                        target.setFailure(ex);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            futures.forEach(future -> future.cancel(true));
+            throw ex;
+        } catch (ExecutionException ex) {
+            // The tasks catch their own failures, this only happens if one could not run at all
+            throw new RuntimeException(ex.getCause());
+        }
+    }
+}
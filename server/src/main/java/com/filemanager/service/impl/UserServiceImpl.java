@@ -246,6 +246,7 @@ public class UserServiceImpl implements UserService {
         dto.setUserId(user.getId());
         dto.setLanguageCount(user.getLanguageCount());
         dto.setTotalWordCount(user.getTotalWordCount());
+        dto.setTotalWordUsed(user.getTotalWordUsed());
         dto.setStorageUsed(user.getStorageUsed());
         dto.setStorageLimit(user.getStorageLimit());
         dto.setStorageUsagePercent(user.getStorageUsagePercent());
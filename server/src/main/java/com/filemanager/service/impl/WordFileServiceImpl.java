@@ -1,144 +1,218 @@
 package com.filemanager.service.impl;
 
-import com.deepl.api.DeepLException;
+import com.filemanager.exception.TranslationException;
+import com.filemanager.service.ExtractedFile;
+import com.filemanager.service.SegmentTranslator;
 import com.filemanager.service.TranslateService;
+import com.filemanager.service.TranslationProgressListener;
+import com.filemanager.service.TranslationTarget;
 import com.filemanager.service.WordFileService;
+import com.filemanager.util.StreamingDocxProcessor;
+import com.filemanager.util.TranslationMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.spire.doc.*;
-import com.spire.doc.collections.DocumentObjectCollection;
-import com.spire.doc.fields.ShapeObject;
-import com.spire.doc.fields.TextRange;
-import com.spire.doc.formatting.CharacterFormat;
-import com.spire.doc.formatting.ParagraphFormat;
 import com.spire.doc.interfaces.IParagraph;
-import com.spire.doc.interfaces.IPicture;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.List;
 
 @Service
 public class WordFileServiceImpl implements WordFileService {
 
     private static final Logger logger = LoggerFactory.getLogger(WordFileServiceImpl.class);
+    // Paragraphs handed to the translate service per call, progress is reported after each group
+    private static final int PROGRESS_CHUNK = 500;
+
     @Autowired
     TranslateService translateService;
+    @Autowired
+    private TranslationTargetRunner translationTargetRunner;
+
+    // "streaming" rewrites .docx files part by part, "spire" always loads the full document model
+    @Value("${translate.docx-engine:streaming}")
+    private String docxEngine;
+
+    private final StreamingDocxProcessor streamingDocxProcessor = new StreamingDocxProcessor();
+
+    @Override
+    public String translateWordFile(String filelocation, String outputFile, String sourceLang, String targetLang) throws TranslationException, InterruptedException {
+        return translateWordFile(filelocation, outputFile,
+            segments -> translateService.translateTexts(segments, sourceLang, targetLang),
+            TranslationProgressListener.NONE);
+    }
+
+    @Override
+    public String translateWordFile(String filelocation, String outputFile, SegmentTranslator translator, TranslationProgressListener listener) throws TranslationException, InterruptedException {
+        ParsedWordFile parsed = parse(filelocation, listener);
+        try {
+            List<String> translated = translateInChunks(parsed.getParagraphs(), translator, listener);
+            write(parsed, translated, outputFile, listener);
+            logger.info("Translated {} paragraphs of {}", translated.size(), filelocation);
+        } finally {
+            parsed.close();
+        }
+        return outputFile;
+    }
+
     @Override
-    public String translateWordFile(String filelocation, String sourceLang, String targetLang) throws DeepLException, InterruptedException {
+    public ExtractedFile extractWordFile(String filelocation, TranslationProgressListener listener) {
+        ParsedWordFile parsed = parse(filelocation, listener);
+        return new ExtractedFile() {
+            @Override
+            public long countCharacters() {
+                return parsed.getParagraphs().stream().mapToLong(String::length).sum();
+            }
+
+            @Override
+            public void translate(List<TranslationTarget> targets) throws InterruptedException {
+                translationTargetRunner.runAll(targets, target -> {
+                    TranslationProgressListener targetListener = target.getListener();
+                    List<String> translated = translateInChunks(parsed.getParagraphs(), target.getTranslator(), targetListener);
+                    write(parsed, translated, target.getOutputFile(), targetListener);
+                });
+                logger.info("Translated {} paragraphs of {} into {} languages", parsed.getParagraphs().size(), filelocation, targets.size());
+            }
+
+            @Override
+            public void close() {
+                parsed.close();
+            }
+        };
+    }
+
+    /**
+     * Load the file and extract its paragraphs with the configured engine
+     */
+    private ParsedWordFile parse(String filelocation, TranslationProgressListener listener) {
+        // Legacy .doc files are binary and can only be handled by Spire
+        if ("streaming".equals(docxEngine) && filelocation.toLowerCase().endsWith(".docx")) {
+            return parseStreaming(filelocation, listener);
+        }
+        return parseWithSpire(filelocation, listener);
+    }
+
+    private ParsedWordFile parseStreaming(String filelocation, TranslationProgressListener listener) {
+        Path source = Paths.get(filelocation);
+        long started = System.nanoTime();
+        List<String> paragraphs;
+        try {
+            paragraphs = streamingDocxProcessor.extractParagraphs(source);
+        } catch (IOException ex) {
+            logger.error("Failed to read Word file: {}", filelocation, ex);
+            throw new RuntimeException("Could not read Word file: " + ex.getMessage(), ex);
+        }
+        listener.onStageCompleted(TranslationMetrics.STAGE_EXTRACT, System.nanoTime() - started);
+
+        return new ParsedWordFile(paragraphs) {
+            @Override
+            void write(List<String> translated, String outputFile) throws IOException {
+                // Every target is an independent rewrite of the source, they can run in parallel
+                streamingDocxProcessor.rewrite(source, Paths.get(outputFile), translated);
+            }
+        };
+    }
+
+    private ParsedWordFile parseWithSpire(String filelocation, TranslationProgressListener listener) {
+        long started = System.nanoTime();
         Document document = new Document();
         document.loadFromFile(filelocation);
+        listener.onStageCompleted(TranslationMetrics.STAGE_LOAD, System.nanoTime() - started);
+
+        started = System.nanoTime();
         ArrayList<String> filecontent = new ArrayList<>();
-        // Iterate through sections
+        List<IParagraph> paragraphs = new ArrayList<>();
+        // Collect the body paragraphs of every section
         for (Object sectionObj : document.getSections()) {
             Section section = (Section) sectionObj;
-            System.out.println("\n====== Section Details ======");
-            System.out.println("\n-- Section Properties --");
-            System.out.println("Page Setup:");
-            PageSetup pageSetup = section.getPageSetup();
-            System.out.println("  Orientation: " + pageSetup.getOrientation());
-            System.out.println("  Page Width: " + pageSetup.getClientWidth());
-            /*System.out.println("  Page Height: " + pageSetup.getPageHeight());
-            System.out.println("  Top Margin: " + pageSetup.getTopMargin());
-            System.out.println("  Bottom Margin: " + pageSetup.getBottomMargin());
-            System.out.println("  Left Margin: " + pageSetup.getLeftMargin());
-            System.out.println("  Right Margin: " + pageSetup.getRightMargin());*/
-            System.out.println("  Header Distance: " + pageSetup.getHeaderDistance());
-            System.out.println("  Footer Distance: " + pageSetup.getFooterDistance());
-
-            // Headers and Footers
-            System.out.println("\n-- Headers --");
-            System.out.println("First Page Header: " + (section.getHeadersFooters().getFirstPageHeader() != null));
-            System.out.println("Odd Header: " + (section.getHeadersFooters().getOddHeader() != null));
-            System.out.println("Even Header: " + (section.getHeadersFooters().getEvenHeader() != null));
-
-            System.out.println("\n-- Footers --");
-            System.out.println("First Page Footer: " + (section.getHeadersFooters().getFirstPageFooter() != null));
-            System.out.println("Odd Footer: " + (section.getHeadersFooters().getOddFooter() != null));
-            System.out.println("Even Footer: " + (section.getHeadersFooters().getEvenFooter() != null));
-            // Paragraphs in section
-            System.out.println("\n-- Paragraphs in Section --");
-
-            for (Object section_obj : section.getChildObjects())
-            {
-                System.out.println(section_obj.getClass());
-                if(section_obj instanceof Body){
+            for (Object section_obj : section.getChildObjects()) {
+                if (section_obj instanceof Body) {
                     Body body = (Body) section_obj;
-                    DocumentObjectCollection child_objs = body.getChildObjects();
-                    for(Object child_obj : child_objs){
-                        System.out.println(child_obj.getClass());
-                        if(child_obj instanceof IParagraph){
+                    for (Object child_obj : body.getChildObjects()) {
+                        if (child_obj instanceof IParagraph) {
                             IParagraph para = (IParagraph) child_obj;
-                            System.out.println("\n--- NEW PARAGRAPH ---");
-                            System.out.println("Text: " + para.getText());
                             filecontent.add(para.getText());
-                            try {
-                                String translated = translateService.translateText(para.getText(), sourceLang, targetLang);
-                                System.out.println("Translated Text: " + translated);
-                                para.setText(translated);
-                            } catch (DeepLException | InterruptedException e) {
-                                throw new RuntimeException(e);
-                            }
-
-                            System.out.println("Style Name: " + para.getStyleName());
-
-                            ParagraphFormat para_format = para.getFormat();
-                            System.out.println("\n-- Format Properties --");
-                            System.out.println("Background Color: " + para_format.getBackColor());
-                            System.out.println("Horizontal Alignment: " + para_format.getHorizontalAlignment());
-                            System.out.println("Line Spacing Rule: " + para_format.getLineSpacingRule());
-                            System.out.println("Line Spacing: " + para_format.getLineSpacing());
-                            System.out.println("First Line Indent: " + para_format.getFirstLineIndent());
-                            System.out.println("Left Indent: " + para_format.getLeftIndent());
-                            System.out.println("Right Indent: " + para_format.getRightIndent());
-                            System.out.println("Before Spacing: " + para_format.getBeforeSpacing());
-                            System.out.println("After Spacing: " + para_format.getAfterSpacing());
-                            System.out.println("No Space Between Paragraphs: " + para_format.getAutoSpaceDE());
-                            System.out.println("Widow/Orphan Control: " + para_format.getTextAlignment());
-                            System.out.println("Keep Lines: " + para_format.getKeepLines());
-                            System.out.println("Keep Follow: " + para_format.getKeepFollow());
-                            System.out.println("--------------------");
-                            // Iterate through elements in paragraph
-                            for (Object obj : para.getChildObjects()) {
-                                System.out.println("\nElement Type: " + obj.getClass().getSimpleName());
-                                if (obj instanceof TextRange) {
-                                    TextRange text = (TextRange) obj;
-                                    System.out.println("Text: " + text.getText());
-                                    CharacterFormat textrange_format = text.getCharacterFormat();
-                                    System.out.println("Font Name: " + textrange_format.getFontName());
-                                    System.out.println("Font Size: " + textrange_format.getFontSize());
-                                    System.out.println("Bold: " + textrange_format.getBold());
-                                    System.out.println("Italic: " + textrange_format.getItalic());
-                                    System.out.println("Underline: " + textrange_format.getUnderlineStyle());
-                                    System.out.println("Text Color: " + textrange_format.getTextColor());
-                                } else if (obj instanceof ShapeObject) {
-                                    ShapeObject shape = (ShapeObject) obj;
-                                    System.out.println("Shape Type: " + shape.getShapeType());
-                                    System.out.println("Width: " + shape.getWidth());
-                                    System.out.println("Height: " + shape.getHeight());
-                                } else if (obj instanceof TableCell) {
-                                    TableCell cell = (TableCell) obj;
-                                    System.out.println("Cell Text: " + cell.getCellFormat());
-                                } else if (obj instanceof IPicture) {
-                                    IPicture pic = (IPicture) obj;
-                                    System.out.println("Picture Width: " + pic.getWidth());
-                                    System.out.println("Picture Height: " + pic.getHeight());
-                                }
-                            }
+                            paragraphs.add(para);
                         }
+                    }
+                }
+            }
+        }
+        listener.onStageCompleted(TranslationMetrics.STAGE_EXTRACT, System.nanoTime() - started);
+        logger.debug("Extracted {} paragraphs from {}", paragraphs.size(), filelocation);
 
+        return new ParsedWordFile(filecontent) {
+            @Override
+            void write(List<String> translated, String outputFile) {
+                // All targets share one document model, so they are applied and saved one at a time
+                synchronized (document) {
+                    for (int i = 0; i < paragraphs.size(); i++) {
+                        paragraphs.get(i).setText(translated.get(i));
                     }
+                    document.saveToFile(outputFile, FileFormat.Docx);
                 }
             }
+
+            @Override
+            void close() {
+                // Close and release the original document object
+                document.close();
+                document.dispose();
+            }
+        };
+    }
+
+    private void write(ParsedWordFile parsed, List<String> translated, String outputFile, TranslationProgressListener listener) {
+        long started = System.nanoTime();
+        try {
+            parsed.write(translated, outputFile);
+        } catch (IOException ex) {
+            logger.error("Failed to write translated Word file: {}", outputFile, ex);
+            throw new RuntimeException("Could not write translated Word file: " + ex.getMessage(), ex);
         }
-        document.saveToFile("files/output.docx", FileFormat.Docx);
-        // Close and release the original document object
-        document.close();
-        document.dispose();
+        listener.onStageCompleted(TranslationMetrics.STAGE_SAVE, System.nanoTime() - started);
+    }
 
-        return filelocation;
+    /**
+     * Translate all paragraphs in as few requests as possible, keeping the results in order
+     */
+    private List<String> translateInChunks(List<String> paragraphs, SegmentTranslator translator, TranslationProgressListener listener) throws TranslationException, InterruptedException {
+        long started = System.nanoTime();
+        listener.onSegmentsFound(paragraphs.size());
+        List<String> translated = new ArrayList<>(paragraphs.size());
+        for (int start = 0; start < paragraphs.size(); start += PROGRESS_CHUNK) {
+            List<String> chunk = paragraphs.subList(start, Math.min(start + PROGRESS_CHUNK, paragraphs.size()));
+            translated.addAll(translator.translate(chunk));
+            listener.onSegmentsTranslated(chunk.size());
+        }
+        listener.onStageCompleted(TranslationMetrics.STAGE_TRANSLATE, System.nanoTime() - started);
+        return translated;
     }
 
+    /**
+     * The paragraphs of a loaded Word file and the means to write a translated copy of it
+     */
+    private abstract static class ParsedWordFile {
+        private final List<String> paragraphs;
+
+        ParsedWordFile(List<String> paragraphs) {
+            this.paragraphs = paragraphs;
+        }
 
-}
\ No newline at end of file
+        List<String> getParagraphs() {
+            return paragraphs;
+        }
+
+        abstract void write(List<String> translated, String outputFile) throws IOException;
+
+        void close() {
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.filemanager.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Append-only key/value store kept in a memory-mapped file.
+ *
+ * Layout: an 8 byte header holding the end of the last complete record, followed by records of
+ * {@code [int keyLength][key][int valueLength][value]}. Only the key to offset index lives on the
+ * heap, values are read straight from the mapping. The file is remapped with double the capacity
+ * when it fills up, up to {@code maxBytes}.
+ */
+public class MappedTranslationStore implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(MappedTranslationStore.class);
+
+    private static final int HEADER_BYTES = Long.BYTES;
+    private static final long INITIAL_CAPACITY = 16L * 1024 * 1024; // 16MB
+
+    private final FileChannel channel;
+    private final long maxBytes;
+    private final Map<String, Integer> index = new ConcurrentHashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean fullLogged = new AtomicBoolean();
+
+    private MappedByteBuffer buffer;
+    private int position;
+
+    public MappedTranslationStore(Path file, long maxBytes) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        this.maxBytes = Math.min(maxBytes, Integer.MAX_VALUE);
+        this.channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        long capacity = Math.min(Math.max(channel.size(), INITIAL_CAPACITY), Integer.MAX_VALUE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        this.position = (int) Math.max(buffer.getLong(0), HEADER_BYTES);
+        rebuildIndex();
+        logger.info("Opened translation store {} with {} entries ({} bytes)", file, index.size(), position);
+    }
+
+    /**
+     * Look up a value, or return null if the key is not in the store
+     */
+    public String get(String key) {
+        Integer offset = index.get(key);
+        if (offset == null) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            // Absolute reads leave the buffer position alone, so readers can share the mapping
+            int keyLength = buffer.getInt(offset);
+            int valueOffset = offset + Integer.BYTES + keyLength;
+            int valueLength = buffer.getInt(valueOffset);
+            byte[] value = new byte[valueLength];
+            buffer.get(valueOffset + Integer.BYTES, value);
+            return new String(value, StandardCharsets.UTF_8);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Append a value. Returns false when the store has reached its size limit.
+     */
+    public boolean put(String key, String value) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+        int recordLength = 2 * Integer.BYTES + keyBytes.length + valueBytes.length;
+
+        lock.writeLock().lock();
+        try {
+            if (index.containsKey(key)) {
+                return true;
+            }
+            if (!ensureCapacity((long) position + recordLength)) {
+                return false;
+            }
+            int offset = position;
+            buffer.putInt(offset, keyBytes.length);
+            buffer.put(offset + Integer.BYTES, keyBytes);
+            buffer.putInt(offset + Integer.BYTES + keyBytes.length, valueBytes.length);
+            buffer.put(offset + 2 * Integer.BYTES + keyBytes.length, valueBytes);
+            position = offset + recordLength;
+            // Publish the record only once it is fully written
+            buffer.putLong(0, position);
+            index.put(key, offset);
+            return true;
+        } catch (IOException ex) {
+            logger.error("Could not grow translation store", ex);
+            return false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public long bytesUsed() {
+        return position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            buffer.force();
+            channel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean ensureCapacity(long required) throws IOException {
+        if (required <= buffer.capacity()) {
+            return true;
+        }
+        if (required > maxBytes) {
+            // Every later put would hit this too, the store only says so once
+            if (fullLogged.compareAndSet(false, true)) {
+                logger.warn("Translation store is full ({} bytes), new entries are not persisted", position);
+            }
+            return false;
+        }
+        long capacity = buffer.capacity();
+        while (capacity < required) {
+            capacity *= 2;
+        }
+        capacity = Math.min(capacity, maxBytes);
+        buffer.force();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        logger.debug("Translation store remapped to {} bytes", capacity);
+        return true;
+    }
+
+    private void rebuildIndex() {
+        int offset = HEADER_BYTES;
+        while (offset < position) {
+            int keyLength = buffer.getInt(offset);
+            byte[] key = new byte[keyLength];
+            buffer.get(offset + Integer.BYTES, key);
+            int valueLength = buffer.getInt(offset + Integer.BYTES + keyLength);
+            index.put(new String(key, StandardCharsets.UTF_8), offset);
+            offset += 2 * Integer.BYTES + keyLength + valueLength;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.filemanager.util;
+
+import java.text.Normalizer;
+import java.util.regex.Pattern;
+
+/**
+ * Decides which segments need a translation and how segments are compared for duplicates
+ */
+public final class SegmentClassifier {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern URL = Pattern.compile("(?i)^(https?://|ftp://|www\\.)\\S+$");
+    private static final Pattern EMAIL = Pattern.compile("^[^\\s@]+@[^\\s@]+\\.[^\\s@]+$");
+    // A single token made of letters, digits and code punctuation with at least one digit,
+    // such as part numbers (AB-1234-X), sizes (M8x20) and versions (v2.1.3)
+    private static final Pattern CODE = Pattern.compile("^(?=\\S*\\d)[\\p{Alnum}\\-_/.:#+×]+$");
+
+    private SegmentClassifier() {
+    }
+
+    /**
+     * Whether a trimmed segment contains anything a translation would change. Numbers,
+     * punctuation, URLs, e-mail addresses and part codes are passed through as they are.
+     */
+    public static boolean isTranslatable(String text) {
+        if (text.isEmpty() || !containsLetter(text)) {
+            return false;
+        }
+        return !URL.matcher(text).matches()
+            && !EMAIL.matcher(text).matches()
+            && !CODE.matcher(text).matches();
+    }
+
+    /**
+     * The form under which two segments count as the same text: Unicode NFC with runs of
+     * whitespace collapsed to one space
+     */
+    public static String normalize(String text) {
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFC);
+        return WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+    }
+
+    private static boolean containsLetter(String text) {
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            if (Character.isLetter(codePoint)) {
+                return true;
+            }
+            i += Character.charCount(codePoint);
+        }
+        return false;
+    }
+}
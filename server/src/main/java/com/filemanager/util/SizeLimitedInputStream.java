@@ -0,0 +1,72 @@
+package com.filemanager.util;
+
+import com.filemanager.exception.FileTooLargeException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Counts the bytes read through it and fails as soon as more than the limit has been read, so an
+ * upload without a declared length is cut off without being stored first
+ */
+public class SizeLimitedInputStream extends FilterInputStream {
+    private final long limit;
+    private long count;
+    private boolean limitExceeded;
+
+    public SizeLimitedInputStream(InputStream in, long limit) {
+        super(in);
+        this.limit = limit;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            advance(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, len);
+        if (read > 0) {
+            advance(read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        advance(skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Whether reading stopped at the limit. Storage clients may wrap the exception, this tells
+     * the caller why the upload failed either way.
+     */
+    public boolean isLimitExceeded() {
+        return limitExceeded;
+    }
+
+    private void advance(long n) throws FileTooLargeException {
+        count += n;
+        if (count > limit) {
+            limitExceeded = true;
+            throw new FileTooLargeException(limit);
+        }
+    }
+}
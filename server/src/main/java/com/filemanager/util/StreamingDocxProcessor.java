@@ -0,0 +1,276 @@
+package com.filemanager.util;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Translates the text of a .docx file without building a document object model.
+ *
+ * The body, header and footer parts are read as StAX event streams. Every {@code w:p} is one
+ * segment whose text is the concatenation of its {@code w:t} runs. On rewrite the translated text
+ * goes into the first run of the paragraph and the remaining runs are emptied, the same result as
+ * replacing the paragraph text in Spire. Every other zip entry (media, styles, relationships) is
+ * copied as raw compressed bytes, so memory use depends on the amount of text, not on the size of
+ * embedded images.
+ */
+public class StreamingDocxProcessor {
+
+    private static final String W_NS = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+    private static final String XML_NS = "http://www.w3.org/XML/1998/namespace";
+    private static final String PARAGRAPH = "p";
+    private static final String TEXT = "t";
+
+    private final XMLInputFactory inputFactory;
+    private final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+    private final XMLEventFactory eventFactory = XMLEventFactory.newInstance();
+
+    public StreamingDocxProcessor() {
+        inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    /**
+     * Read the text of every paragraph, in the order {@link #rewrite} expects the translations
+     */
+    public List<String> extractParagraphs(Path docx) throws IOException {
+        List<String> paragraphs = new ArrayList<>();
+        try (ZipFile zip = new ZipFile(docx.toFile())) {
+            for (ZipArchiveEntry entry : textParts(zip)) {
+                try (InputStream in = zip.getInputStream(entry)) {
+                    extract(in, paragraphs);
+                }
+            }
+        } catch (XMLStreamException ex) {
+            throw new IOException("Could not parse " + docx, ex);
+        }
+        return paragraphs;
+    }
+
+    /**
+     * Write a copy of {@code source} to {@code target} with the paragraph texts replaced
+     *
+     * @param translations One entry per paragraph returned by {@link #extractParagraphs}
+     */
+    public void rewrite(Path source, Path target, List<String> translations) throws IOException {
+        try (ZipFile zip = new ZipFile(source.toFile());
+             ZipArchiveOutputStream out = new ZipArchiveOutputStream(target.toFile())) {
+            Set<String> textParts = new HashSet<>();
+            for (ZipArchiveEntry entry : textParts(zip)) {
+                textParts.add(entry.getName());
+            }
+            Iterator<String> remaining = translations.iterator();
+
+            // Parts are written in archive order, translations are consumed in textParts() order
+            Map<String, List<String>> partTranslations = new HashMap<>();
+            for (ZipArchiveEntry entry : textParts(zip)) {
+                partTranslations.put(entry.getName(), take(remaining, countParagraphs(zip, entry)));
+            }
+
+            for (ZipArchiveEntry entry : Collections.list(zip.getEntriesInPhysicalOrder())) {
+                if (textParts.contains(entry.getName())) {
+                    out.putArchiveEntry(new ZipArchiveEntry(entry.getName()));
+                    try (InputStream in = zip.getInputStream(entry)) {
+                        replace(in, out, partTranslations.get(entry.getName()).iterator());
+                    }
+                    out.closeArchiveEntry();
+                } else {
+                    // Copy the compressed bytes through untouched
+                    out.addRawArchiveEntry(entry, zip.getRawInputStream(entry));
+                }
+            }
+        } catch (XMLStreamException ex) {
+            throw new IOException("Could not rewrite " + source, ex);
+        }
+    }
+
+    /**
+     * The parts holding translatable paragraphs: the body first, then headers and footers by name
+     */
+    private List<ZipArchiveEntry> textParts(ZipFile zip) {
+        List<ZipArchiveEntry> parts = new ArrayList<>();
+        ZipArchiveEntry body = zip.getEntry("word/document.xml");
+        if (body != null) {
+            parts.add(body);
+        }
+        List<ZipArchiveEntry> headersAndFooters = new ArrayList<>();
+        for (ZipArchiveEntry entry : Collections.list(zip.getEntries())) {
+            String name = entry.getName();
+            if (name.matches("word/(header|footer)\\d*\\.xml")) {
+                headersAndFooters.add(entry);
+            }
+        }
+        headersAndFooters.sort((a, b) -> a.getName().compareTo(b.getName()));
+        parts.addAll(headersAndFooters);
+        return parts;
+    }
+
+    private int countParagraphs(ZipFile zip, ZipArchiveEntry entry) throws IOException, XMLStreamException {
+        XMLEventReader reader;
+        int count = 0;
+        try (InputStream in = zip.getInputStream(entry)) {
+            reader = inputFactory.createXMLEventReader(in);
+            while (reader.hasNext()) {
+                XMLEvent event = reader.nextEvent();
+                if (event.isStartElement() && isW(event.asStartElement().getName(), PARAGRAPH)) {
+                    count++;
+                }
+            }
+            reader.close();
+        }
+        return count;
+    }
+
+    private static List<String> take(Iterator<String> iterator, int count) {
+        List<String> taken = new ArrayList<>(count);
+        for (int i = 0; i < count && iterator.hasNext(); i++) {
+            taken.add(iterator.next());
+        }
+        return taken;
+    }
+
+    private void extract(InputStream in, List<String> paragraphs) throws XMLStreamException {
+        XMLEventReader reader = inputFactory.createXMLEventReader(in);
+        // Paragraphs nest inside text boxes, text always belongs to the innermost open paragraph
+        Deque<StringBuilder> open = new ArrayDeque<>();
+        Deque<Integer> openIndexes = new ArrayDeque<>();
+        boolean inText = false;
+        try {
+            while (reader.hasNext()) {
+                XMLEvent event = reader.nextEvent();
+                if (event.isStartElement()) {
+                    QName name = event.asStartElement().getName();
+                    if (isW(name, PARAGRAPH)) {
+                        openIndexes.push(paragraphs.size());
+                        paragraphs.add(null);
+                        open.push(new StringBuilder());
+                    } else if (isW(name, TEXT) && !open.isEmpty()) {
+                        inText = true;
+                    }
+                } else if (event.isCharacters() && inText) {
+                    open.peek().append(event.asCharacters().getData());
+                } else if (event.isEndElement()) {
+                    QName name = event.asEndElement().getName();
+                    if (isW(name, TEXT)) {
+                        inText = false;
+                    } else if (isW(name, PARAGRAPH) && !open.isEmpty()) {
+                        paragraphs.set(openIndexes.pop(), open.pop().toString());
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private void replace(InputStream in, OutputStream out, Iterator<String> translations) throws XMLStreamException {
+        XMLEventReader reader = inputFactory.createXMLEventReader(in);
+        XMLEventWriter writer = outputFactory.createXMLEventWriter(new NonClosingOutputStream(out), "UTF-8");
+        // For each open paragraph: its translation, or null once it has been written
+        Deque<String[]> open = new ArrayDeque<>();
+        try {
+            while (reader.hasNext()) {
+                XMLEvent event = reader.nextEvent();
+                if (event.isStartElement()) {
+                    StartElement start = event.asStartElement();
+                    if (isW(start.getName(), PARAGRAPH)) {
+                        open.push(new String[] {translations.hasNext() ? translations.next() : null});
+                    } else if (isW(start.getName(), TEXT) && !open.isEmpty()) {
+                        String[] paragraph = open.peek();
+                        skipText(reader);
+                        if (paragraph[0] != null) {
+                            writer.add(preserveSpace(start));
+                            writer.add(eventFactory.createCharacters(paragraph[0]));
+                            paragraph[0] = null;
+                        } else {
+                            writer.add(start);
+                        }
+                        writer.add(eventFactory.createEndElement(start.getName(), Collections.emptyIterator()));
+                        continue;
+                    }
+                } else if (event.isEndElement() && isW(event.asEndElement().getName(), PARAGRAPH) && !open.isEmpty()) {
+                    open.pop();
+                }
+                writer.add(event);
+            }
+            writer.flush();
+        } finally {
+            writer.close();
+            reader.close();
+        }
+    }
+
+    /**
+     * Consume the original content of a {@code w:t} up to and including its end tag
+     */
+    private void skipText(XMLEventReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            XMLEvent event = reader.nextEvent();
+            if (event.isEndElement()) {
+                return;
+            }
+        }
+    }
+
+    private StartElement preserveSpace(StartElement start) {
+        List<Attribute> attributes = new ArrayList<>();
+        Iterator<Attribute> existing = start.getAttributes();
+        while (existing.hasNext()) {
+            Attribute attribute = existing.next();
+            if (!XML_NS.equals(attribute.getName().getNamespaceURI())) {
+                attributes.add(attribute);
+            }
+        }
+        attributes.add(eventFactory.createAttribute("xml", XML_NS, "space", "preserve"));
+        return eventFactory.createStartElement(start.getName(), attributes.iterator(), start.getNamespaces());
+    }
+
+    private static boolean isW(QName name, String localPart) {
+        return W_NS.equals(name.getNamespaceURI()) && localPart.equals(name.getLocalPart());
+    }
+
+    /**
+     * Keeps the XML writer from closing the zip stream when a part is done
+     */
+    private static class NonClosingOutputStream extends java.io.FilterOutputStream {
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.filemanager.util;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Splits a character stream into pieces of at most {@code maxCharacters} characters without
+ * reading more than one piece ahead.
+ *
+ * A piece ends at the first paragraph break (a blank line). A paragraph longer than the limit
+ * is cut at its last line break, then its last sentence end, then its last whitespace, and only
+ * as a last resort in the middle of a word. Whitespace around a piece is kept apart from its
+ * text so that writing {@code leading + translation + trailing} for every piece reproduces the
+ * layout of the original.
+ */
+public class TextChunker {
+
+    private final Reader reader;
+    private final int maxCharacters;
+    private final char[] readBuffer = new char[8192];
+    private final StringBuilder pending = new StringBuilder();
+    private boolean endOfInput;
+
+    public TextChunker(Reader reader, int maxCharacters) {
+        this.reader = reader;
+        this.maxCharacters = maxCharacters;
+    }
+
+    public static class Piece {
+        private final String leading;
+        private final String text;
+        private final String trailing;
+
+        Piece(String leading, String text, String trailing) {
+            this.leading = leading;
+            this.text = text;
+            this.trailing = trailing;
+        }
+
+        public String getLeading() {
+            return leading;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public String getTrailing() {
+            return trailing;
+        }
+    }
+
+    /**
+     * The next piece of the stream, or null at the end
+     */
+    public Piece next() throws IOException {
+        // Keep one character past the limit in the buffer to see whether a boundary follows it
+        while (!endOfInput && pending.length() <= maxCharacters && paragraphEnd() < 0) {
+            int read = reader.read(readBuffer);
+            if (read < 0) {
+                endOfInput = true;
+            } else {
+                pending.append(readBuffer, 0, read);
+            }
+        }
+        if (pending.length() == 0) {
+            return null;
+        }
+
+        int cut = paragraphEnd();
+        if (cut < 0 || cut > maxCharacters) {
+            cut = pending.length() <= maxCharacters ? pending.length() : splitPoint();
+        }
+        String raw = pending.substring(0, cut);
+        pending.delete(0, cut);
+        return piece(raw);
+    }
+
+    /**
+     * Index just past the first blank line and the whitespace following it, or -1
+     */
+    private int paragraphEnd() {
+        int limit = Math.min(pending.length(), maxCharacters + 1);
+        for (int i = 0; i < limit; i++) {
+            if (pending.charAt(i) != '\n') {
+                continue;
+            }
+            int j = i + 1;
+            while (j < pending.length() && isLineSpace(pending.charAt(j))) {
+                j++;
+            }
+            if (j < pending.length() && pending.charAt(j) == '\n') {
+                // Swallow the whole run of blank lines, unless it may continue past the buffer
+                while (j < pending.length() && Character.isWhitespace(pending.charAt(j))) {
+                    j++;
+                }
+                if (j < pending.length() || endOfInput) {
+                    return j;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Where to cut a paragraph that does not fit into one piece
+     */
+    private int splitPoint() {
+        int newline = -1;
+        int sentence = -1;
+        int space = -1;
+        for (int i = 1; i < maxCharacters; i++) {
+            char c = pending.charAt(i);
+            if (c == '\n') {
+                newline = i + 1;
+            } else if (Character.isWhitespace(c)) {
+                space = i + 1;
+                if (isSentenceEnd(pending.charAt(i - 1))) {
+                    sentence = i + 1;
+                }
+            } else if (isFullWidthSentenceEnd(c)) {
+                // CJK text has no space after a full stop
+                sentence = i + 1;
+            }
+        }
+        if (newline > 0) {
+            return newline;
+        }
+        if (sentence > 0) {
+            return sentence;
+        }
+        if (space > 0) {
+            return space;
+        }
+        // Do not separate the halves of a surrogate pair
+        return Character.isHighSurrogate(pending.charAt(maxCharacters - 1)) ? maxCharacters - 1 : maxCharacters;
+    }
+
+    private static Piece piece(String raw) {
+        int start = 0;
+        while (start < raw.length() && Character.isWhitespace(raw.charAt(start))) {
+            start++;
+        }
+        int end = raw.length();
+        while (end > start && Character.isWhitespace(raw.charAt(end - 1))) {
+            end--;
+        }
+        return new Piece(raw.substring(0, start), raw.substring(start, end), raw.substring(end));
+    }
+
+    private static boolean isLineSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\r';
+    }
+
+    private static boolean isSentenceEnd(char c) {
+        return c == '.' || c == '!' || c == '?' || c == ';' || c == ':';
+    }
+
+    private static boolean isFullWidthSentenceEnd(char c) {
+        return c == '。' || c == '！' || c == '？' || c == '；';
+    }
+}
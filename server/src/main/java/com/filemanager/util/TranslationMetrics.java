@@ -0,0 +1,118 @@
+package com.filemanager.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Meters of the translation pipeline. Stage timers are tagged with the language pair and the
+ * file type. Provider meters are tagged with the provider and the language pair only, since a
+ * request mixes segments of whatever files are being translated.
+ */
+@Component
+public class TranslationMetrics {
+    public static final String STAGE_DOWNLOAD = "download";
+    public static final String STAGE_LOAD = "load";
+    public static final String STAGE_EXTRACT = "extract";
+    public static final String STAGE_TRANSLATE = "translate";
+    public static final String STAGE_SAVE = "save";
+    public static final String STAGE_UPLOAD = "upload";
+
+    public static final String SKIP_BLANK = "blank";
+    public static final String SKIP_MEMORY = "memory";
+    public static final String SKIP_REUSED = "reused";
+    public static final String SKIP_DUPLICATE = "duplicate";
+    public static final String SKIP_UNTRANSLATABLE = "untranslatable";
+
+    private final MeterRegistry registry;
+
+    public TranslationMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void recordStage(String stage, String languagePair, String fileType, long nanos) {
+        Timer.builder("translation.stage.duration")
+            .description("Time spent in each stage of a document translation")
+            .tag("stage", stage)
+            .tag("language_pair", languagePair)
+            .tag("file_type", fileType)
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordProviderLatency(String provider, String languagePair, String outcome, long nanos) {
+        Timer.builder("translation.provider.latency")
+            .description("Latency of translation provider requests")
+            .tag("provider", provider)
+            .tag("language_pair", languagePair)
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordCharactersSent(String provider, String languagePair, int characters) {
+        Counter.builder("translation.characters.sent")
+            .description("Characters sent to the translation provider")
+            .tag("provider", provider)
+            .tag("language_pair", languagePair)
+            .register(registry)
+            .increment(characters);
+    }
+
+    public void recordSegmentsSkipped(String languagePair, String reason, int count) {
+        if (count == 0) {
+            return;
+        }
+        Counter.builder("translation.segments.skipped")
+            .description("Segments that did not need a provider request")
+            .tag("language_pair", languagePair)
+            .tag("reason", reason)
+            .register(registry)
+            .increment(count);
+    }
+
+    public void recordCharactersSaved(String languagePair, String reason, long characters) {
+        if (characters == 0) {
+            return;
+        }
+        Counter.builder("translation.characters.saved")
+            .description("Characters that did not have to be sent to the translation provider")
+            .tag("language_pair", languagePair)
+            .tag("reason", reason)
+            .register(registry)
+            .increment(characters);
+    }
+
+    public void registerQueueDepth(String tier, AtomicInteger depth) {
+        Gauge.builder("translation.scheduler.queue.depth", depth, AtomicInteger::get)
+            .description("Translation jobs waiting for a worker")
+            .tag("tier", tier)
+            .register(registry);
+    }
+
+    public void recordQueueWait(String tier, long nanos) {
+        Timer.builder("translation.scheduler.wait")
+            .description("Time translation jobs wait in the queue before they start")
+            .tag("tier", tier)
+            .publishPercentileHistogram()
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public static String languagePair(String sourceLang, String targetLang) {
+        String source = sourceLang == null || sourceLang.isBlank() ? "auto" : sourceLang.toLowerCase(Locale.ROOT);
+        return source + "-" + targetLang.toLowerCase(Locale.ROOT);
+    }
+
+    public static String fileType(String fileName) {
+        int extension = fileName.lastIndexOf('.');
+        return extension >= 0 ? fileName.substring(extension + 1).toLowerCase(Locale.ROOT) : "unknown";
+    }
+}
@@ -0,0 +1,145 @@
+package com.filemanager.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Token bucket limiter for translation provider requests, shared by every job in the process.
+ *
+ * Two buckets are kept, one for characters and one for requests, each holding one second worth
+ * of tokens. Callers are served in arrival order (the lock is fair), so a large job with many
+ * chunks in flight cannot starve a small one. When the provider answers with 429 the effective
+ * rate is halved and all callers pause; each successful request then recovers the rate a little
+ * (additive increase, multiplicative decrease).
+ */
+public class TranslationRateLimiter {
+    private static final Logger logger = LoggerFactory.getLogger(TranslationRateLimiter.class);
+
+    private static final double MIN_RATE_FACTOR = 0.1;
+    private static final double RECOVERY_STEP = 0.02;
+    private static final long INITIAL_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long MAX_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final double charactersPerSecond;
+    private final double requestsPerSecond;
+    private final Ticker ticker;
+    private final ReentrantLock lock = new ReentrantLock(true);
+
+    // Guarded by lock
+    private double characterTokens;
+    private double requestTokens;
+    private long lastRefill;
+
+    // Written under the monitor of this limiter, read without locking
+    private volatile double rateFactor = 1.0;
+    private volatile long pausedUntil;
+    private long backoffNanos = INITIAL_BACKOFF_NANOS;
+
+    public TranslationRateLimiter(double charactersPerSecond, double requestsPerSecond) {
+        this(charactersPerSecond, requestsPerSecond, Ticker.SYSTEM);
+    }
+
+    TranslationRateLimiter(double charactersPerSecond, double requestsPerSecond, Ticker ticker) {
+        this.charactersPerSecond = charactersPerSecond;
+        this.requestsPerSecond = requestsPerSecond;
+        this.ticker = ticker;
+        this.characterTokens = charactersPerSecond;
+        this.requestTokens = requestsPerSecond;
+        this.lastRefill = ticker.nanoTime();
+        this.pausedUntil = lastRefill;
+    }
+
+    /**
+     * Block until one request carrying {@code characters} characters may be sent
+     */
+    public void acquire(int characters) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                long now = ticker.nanoTime();
+                if (now - pausedUntil < 0) {
+                    ticker.sleep(pausedUntil - now);
+                    continue;
+                }
+                refill(now);
+
+                // A request larger than the bucket only has to wait for a full bucket
+                double factor = rateFactor;
+                double neededCharacters = Math.min(characters, charactersPerSecond * factor);
+                double neededRequests = Math.min(1, requestsPerSecond * factor);
+                if (characterTokens >= neededCharacters && requestTokens >= neededRequests) {
+                    characterTokens -= characters;
+                    requestTokens -= 1;
+                    return;
+                }
+
+                double characterWait = (neededCharacters - characterTokens) / (charactersPerSecond * factor);
+                double requestWait = (neededRequests - requestTokens) / (requestsPerSecond * factor);
+                long waitNanos = (long) (Math.max(characterWait, requestWait) * 1_000_000_000L);
+                // Sleep while holding the lock so that waiters keep their place in line
+                ticker.sleep(Math.max(waitNanos, 1_000_000L));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Record that the provider accepted a request
+     */
+    public synchronized void onSuccess() {
+        if (rateFactor < 1.0) {
+            rateFactor = Math.min(1.0, rateFactor + RECOVERY_STEP);
+        }
+        backoffNanos = INITIAL_BACKOFF_NANOS;
+    }
+
+    /**
+     * Record that the provider throttled a request (HTTP 429)
+     */
+    public synchronized void onThrottled() {
+        // Not taking the fair lock here: the thread holding it may be sleeping in acquire()
+        rateFactor = Math.max(MIN_RATE_FACTOR, rateFactor / 2);
+        pausedUntil = ticker.nanoTime() + backoffNanos;
+        backoffNanos = Math.min(MAX_BACKOFF_NANOS, backoffNanos * 2);
+        logger.warn("Translation provider throttled us, rate reduced to {}%", Math.round(rateFactor * 100));
+    }
+
+    public double getRateFactor() {
+        return rateFactor;
+    }
+
+    private void refill(long now) {
+        double elapsedSeconds = (now - lastRefill) / 1_000_000_000.0;
+        lastRefill = now;
+        double factor = rateFactor;
+        double characterCapacity = charactersPerSecond * factor;
+        double requestCapacity = requestsPerSecond * factor;
+        characterTokens = Math.min(characterCapacity, characterTokens + elapsedSeconds * characterCapacity);
+        requestTokens = Math.min(requestCapacity, requestTokens + elapsedSeconds * requestCapacity);
+    }
+
+    /**
+     * The time source of the limiter, replaced in tests so that waits do not take real time
+     */
+    interface Ticker {
+        Ticker SYSTEM = new Ticker() {
+            @Override
+            public long nanoTime() {
+                return System.nanoTime();
+            }
+
+            @Override
+            public void sleep(long nanos) throws InterruptedException {
+                TimeUnit.NANOSECONDS.sleep(nanos);
+            }
+        };
+
+        long nanoTime();
+
+        void sleep(long nanos) throws InterruptedException;
+    }
+}
@@ -0,0 +1,2 @@
+-- Characters to translate in the file of a master, counted by the first translation job
+ALTER TABLE documents ADD COLUMN char_count BIGINT;
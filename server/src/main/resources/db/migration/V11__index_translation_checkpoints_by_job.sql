@@ -0,0 +1,7 @@
+-- Checkpoints of jobs that no longer exist cannot be resumed
+DELETE FROM translation_checkpoints c WHERE NOT EXISTS (SELECT 1 FROM translation_jobs j WHERE j.id = c.job_id);
+
+ALTER TABLE translation_checkpoints ADD CONSTRAINT fk_translation_checkpoints_job
+    FOREIGN KEY (job_id) REFERENCES translation_jobs(id) ON DELETE CASCADE;
+
+CREATE INDEX idx_translation_checkpoints_job ON translation_checkpoints(job_id);
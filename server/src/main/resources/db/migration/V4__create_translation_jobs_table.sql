@@ -0,0 +1,18 @@
+CREATE TABLE translation_jobs (
+    id BIGSERIAL PRIMARY KEY,
+    document_id BIGINT NOT NULL,
+    master_document_id BIGINT NOT NULL,
+    user_id BIGINT,
+    source_lang VARCHAR(10),
+    target_lang VARCHAR(10) NOT NULL,
+    status VARCHAR(20) DEFAULT 'QUEUED' NOT NULL,
+    total_segments INTEGER DEFAULT 0,
+    translated_segments INTEGER DEFAULT 0,
+    error_message VARCHAR(255),
+    created_at TIMESTAMP,
+    started_at TIMESTAMP,
+    finished_at TIMESTAMP,
+    FOREIGN KEY (document_id) REFERENCES documents(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_translation_jobs_master_document_id ON translation_jobs(master_document_id);
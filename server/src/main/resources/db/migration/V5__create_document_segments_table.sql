@@ -0,0 +1,10 @@
+CREATE TABLE document_segments (
+    id BIGSERIAL PRIMARY KEY,
+    document_id BIGINT NOT NULL,
+    segment_index INTEGER NOT NULL,
+    source_hash VARCHAR(64) NOT NULL,
+    translated_text TEXT,
+    FOREIGN KEY (document_id) REFERENCES documents(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_document_segments_document_id ON document_segments(document_id);
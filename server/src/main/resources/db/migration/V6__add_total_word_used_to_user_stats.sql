@@ -0,0 +1 @@
+ALTER TABLE user_stats ADD COLUMN total_word_used BIGINT DEFAULT 0;
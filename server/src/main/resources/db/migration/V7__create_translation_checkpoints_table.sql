@@ -0,0 +1,10 @@
+CREATE TABLE translation_checkpoints (
+    id BIGSERIAL PRIMARY KEY,
+    document_id BIGINT NOT NULL,
+    job_id BIGINT NOT NULL,
+    source_hash VARCHAR(64) NOT NULL,
+    translated_text TEXT,
+    FOREIGN KEY (document_id) REFERENCES documents(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_translation_checkpoints_document_hash ON translation_checkpoints(document_id, source_hash);
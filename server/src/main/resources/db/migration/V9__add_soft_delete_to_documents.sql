@@ -0,0 +1,8 @@
+UPDATE documents SET is_deleted = false WHERE is_deleted IS NULL;
+ALTER TABLE documents ALTER COLUMN is_deleted SET DEFAULT false;
+
+ALTER TABLE documents ADD COLUMN deleted_at TIMESTAMP;
+ALTER TABLE documents ADD COLUMN gc_attempts INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE documents ADD COLUMN gc_retry_at TIMESTAMP;
+
+CREATE INDEX idx_documents_deleted ON documents(id) WHERE is_deleted = true;
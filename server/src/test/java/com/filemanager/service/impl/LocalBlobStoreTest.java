@@ -0,0 +1,175 @@
+package com.filemanager.service.impl;
+
+import com.filemanager.repository.StorageBlobRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LocalBlobStoreTest {
+
+    @TempDir
+    Path uploadDir;
+
+    // Reference counts as storage_blobs would hold them
+    private final Map<String, Integer> refCounts = new HashMap<>();
+    private LocalBlobStore store;
+
+    @BeforeEach
+    void setUp() {
+        StorageBlobRepository repository = mock(StorageBlobRepository.class);
+        doAnswer(call -> refCounts.merge(call.getArgument(0), 1, Integer::sum))
+            .when(repository).acquire(anyString(), anyLong());
+        when(repository.release(anyString())).thenAnswer(call -> {
+            String digest = call.getArgument(0);
+            if (refCounts.getOrDefault(digest, 0) <= 0) {
+                return 0;
+            }
+            refCounts.merge(digest, -1, Integer::sum);
+            return 1;
+        });
+        when(repository.deleteUnreferenced(anyString())).thenAnswer(call ->
+            refCounts.remove(call.getArgument(0), 0) ? 1 : 0);
+
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        store = new LocalBlobStore();
+        ReflectionTestUtils.setField(store, "storageBlobRepository", repository);
+        ReflectionTestUtils.setField(store, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(store, "uploadDir", uploadDir.toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void sameContentIsStoredOnce() throws IOException {
+        Path first = write("first.txt", "same content");
+        Path second = write("second.txt", "same content");
+
+        Path blob = store.store(first);
+
+        assertEquals(blob, store.store(second));
+        assertEquals(blob, store.store(new ByteArrayInputStream(bytes("same content"))));
+        assertEquals(3, refCounts.get(blob.getFileName().toString()));
+        assertEquals("same content", Files.readString(blob));
+        assertEquals(1, blobCount());
+        assertTrue(Files.exists(first), "the stored file is left in place");
+        assertEquals(0, tempFilesLeft(), "no spooled copy is left behind");
+    }
+
+    @Test
+    void differentContentGetsItsOwnBlob() throws IOException {
+        Path one = store.store(write("one.txt", "one"));
+        Path two = store.store(new ByteArrayInputStream(bytes("two")));
+
+        assertNotEquals(one, two);
+        assertEquals(2, blobCount());
+    }
+
+    @Test
+    void knownContentIsNotCopiedAgain() throws IOException {
+        store.store(write("first.txt", "known"));
+        AtomicInteger opens = new AtomicInteger();
+
+        store.store(() -> {
+            opens.incrementAndGet();
+            return new ByteArrayInputStream(bytes("known"));
+        });
+
+        // Opened once to hash it, the blob exists so nothing is copied
+        assertEquals(1, opens.get());
+    }
+
+    @Test
+    void blobIsDeletedWithItsLastReference() throws IOException {
+        Path blob = store.store(write("file.txt", "shared"));
+        store.store(write("copy.txt", "shared"));
+
+        store.release(blob.toString());
+        assertTrue(Files.exists(blob));
+
+        store.release(blob.toString());
+        assertFalse(Files.exists(blob));
+        assertFalse(refCounts.containsKey(blob.getFileName().toString()));
+    }
+
+    @Test
+    void referenceIsGivenBackWhenTheCallerRollsBack() throws IOException {
+        TransactionSynchronizationManager.initSynchronization();
+        Path blob = store.store(write("file.txt", "rolled back"));
+        assertEquals(1, refCounts.get(blob.getFileName().toString()));
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+
+        assertFalse(Files.exists(blob));
+        assertFalse(refCounts.containsKey(blob.getFileName().toString()));
+    }
+
+    @Test
+    void referenceIsKeptWhenTheCallerCommits() throws IOException {
+        TransactionSynchronizationManager.initSynchronization();
+        Path blob = store.store(write("file.txt", "committed"));
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+
+        assertTrue(Files.exists(blob));
+        assertEquals(1, refCounts.get(blob.getFileName().toString()));
+    }
+
+    private Path write(String name, String content) throws IOException {
+        Path dir = Files.createDirectories(uploadDir.resolve("sources"));
+        return Files.writeString(dir.resolve(name), content);
+    }
+
+    private long blobCount() throws IOException {
+        try (Stream<Path> files = Files.walk(uploadDir.resolve("blobs"))) {
+            return files.filter(Files::isRegularFile).filter(file -> !file.getParent().endsWith("tmp")).count();
+        }
+    }
+
+    private long tempFilesLeft() throws IOException {
+        try (Stream<Path> files = Files.list(uploadDir.resolve("blobs").resolve("tmp"))) {
+            return files.count();
+        }
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,134 @@
+package com.filemanager.service.impl;
+
+import com.filemanager.util.TranslationMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TranslationJobSchedulerTest {
+
+    private final ManualExecutor executor = new ManualExecutor();
+    private final List<String> ran = new ArrayList<>();
+
+    @Test
+    void jobsRunInOrderOfTheirFinishTags() {
+        TranslationJobScheduler scheduler = scheduler(1, 0);
+
+        submit(scheduler, 1L, "FREE", "free-1");
+        submit(scheduler, 1L, "FREE", "free-2");
+        submit(scheduler, 1L, "FREE", "free-3");
+        submit(scheduler, 2L, "PRO", "pro-1");
+        submit(scheduler, 2L, "PRO", "pro-2");
+        submit(scheduler, 2L, "PRO", "pro-3");
+        submit(scheduler, 2L, "PRO", "pro-4");
+        submit(scheduler, 2L, "PRO", "pro-5");
+        executor.runAll();
+
+        // PRO weighs four times FREE: four PRO jobs finish within the share of one FREE job
+        assertEquals(List.of("free-1", "pro-1", "pro-2", "pro-3", "pro-4", "pro-5", "free-2", "free-3"), ran);
+    }
+
+    @Test
+    void userCannotRunMoreJobsThanTheirTierAllows() {
+        TranslationJobScheduler scheduler = scheduler(3, 0);
+
+        submit(scheduler, 1L, "FREE", "a-1");
+        submit(scheduler, 1L, "FREE", "a-2");
+        submit(scheduler, 2L, "FREE", "b-1");
+
+        // A worker is left idle rather than given to a second job of the same user
+        assertEquals(2, executor.accepted.size());
+        executor.runAll();
+        assertEquals(List.of("a-1", "b-1", "a-2"), ran);
+    }
+
+    @Test
+    void reservedWorkerOnlyTakesPriorityJobs() {
+        TranslationJobScheduler scheduler = scheduler(2, 1);
+
+        submit(scheduler, 1L, "PRO", "pro-1");
+        submit(scheduler, 2L, "PRO", "pro-2");
+        submit(scheduler, 3L, "ENTERPRISE", "enterprise-1");
+
+        assertEquals(2, executor.accepted.size());
+        executor.runAll();
+        assertEquals(List.of("pro-1", "enterprise-1", "pro-2"), ran);
+    }
+
+    @Test
+    void rejectedJobStaysQueuedAndStartsLater() {
+        TranslationJobScheduler scheduler = scheduler(2, 0);
+        executor.rejecting = true;
+
+        submit(scheduler, 1L, "FREE", "rejected");
+        assertEquals(0, executor.accepted.size());
+
+        executor.rejecting = false;
+        submit(scheduler, 2L, "PRO", "pro-1");
+
+        assertEquals(2, executor.accepted.size());
+        executor.runAll();
+        assertEquals(List.of("pro-1", "rejected"), ran);
+    }
+
+    @Test
+    void fullQueueRejectsNewJobs() {
+        TranslationJobScheduler scheduler = scheduler(1, 0);
+        ReflectionTestUtils.setField(scheduler, "queueCapacity", 1);
+
+        submit(scheduler, 1L, "FREE", "running");
+        submit(scheduler, 1L, "FREE", "queued");
+
+        assertThrows(TaskRejectedException.class, () -> submit(scheduler, 2L, "FREE", "over"));
+    }
+
+    private TranslationJobScheduler scheduler(int workers, int reservedWorkers) {
+        TranslationJobScheduler scheduler = new TranslationJobScheduler();
+        ReflectionTestUtils.setField(scheduler, "translationJobExecutor", executor);
+        ReflectionTestUtils.setField(scheduler, "translationMetrics", new TranslationMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(scheduler, "workers", workers);
+        ReflectionTestUtils.setField(scheduler, "queueCapacity", 100);
+        ReflectionTestUtils.setField(scheduler, "weightConfig", "FREE=1,BASIC=2,PRO=4,ENTERPRISE=8");
+        ReflectionTestUtils.setField(scheduler, "userConcurrencyConfig", "FREE=1,BASIC=1,PRO=2,ENTERPRISE=4");
+        ReflectionTestUtils.setField(scheduler, "reservedWorkers", reservedWorkers);
+        scheduler.init();
+        return scheduler;
+    }
+
+    private void submit(TranslationJobScheduler scheduler, Long userId, String tier, String name) {
+        scheduler.submit(userId, tier, () -> ran.add(name));
+    }
+
+    /**
+     * Holds the jobs handed to the pool until the test runs them, in the order they were handed over
+     */
+    private static class ManualExecutor extends ThreadPoolTaskExecutor {
+        final Deque<Runnable> accepted = new ArrayDeque<>();
+        boolean rejecting;
+
+        @Override
+        public void execute(Runnable task) {
+            if (rejecting) {
+                throw new TaskRejectedException("Rejected by the test");
+            }
+            accepted.addLast(task);
+        }
+
+        void runAll() {
+            while (!accepted.isEmpty()) {
+                // Finishing a job may hand the next one over
+                accepted.removeFirst().run();
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.filemanager.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SegmentClassifierTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "", "12.5", "1,000", "— ... —", "42%",
+        "https://example.com/manual.pdf", "www.example.com", "info@example.com",
+        "AB-1234-X", "M8x20", "v2.1.3", "#A-12"
+    })
+    void passesThroughTextATranslationWouldNotChange(String text) {
+        assertFalse(SegmentClassifier.isTranslatable(text));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"Hello world", "开始", "Bolt M8x20", "OK", "Version 2", "Über"})
+    void translatesText(String text) {
+        assertTrue(SegmentClassifier.isTranslatable(text));
+    }
+
+    @Test
+    void normalizeCollapsesWhitespaceAndComposesCharacters() {
+        assertEquals("Größe \u00e1 b", SegmentClassifier.normalize("  Größe\ta\u0301 \n b "));
+    }
+
+    @Test
+    void normalizedFormsOfTheSameTextAreEqual() {
+        assertEquals(SegmentClassifier.normalize("cafe\u0301  menu"), SegmentClassifier.normalize("caf\u00e9 menu"));
+    }
+}
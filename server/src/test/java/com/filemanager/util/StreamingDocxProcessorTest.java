@@ -0,0 +1,156 @@
+package com.filemanager.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingDocxProcessorTest {
+
+    private static final String W = "xmlns:w=\"http://schemas.openxmlformats.org/wordprocessingml/2006/main\"";
+
+    private final StreamingDocxProcessor processor = new StreamingDocxProcessor();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void extractsBodyThenHeadersAndFootersByName() throws IOException {
+        Path docx = docx(Map.of(
+            "word/footer1.xml", part("ftr", paragraph("Footer")),
+            "word/document.xml", body(paragraph("First") + paragraph("Second")),
+            "word/header2.xml", part("hdr", paragraph("Header two")),
+            "word/header1.xml", part("hdr", paragraph("Header one"))));
+
+        assertEquals(List.of("First", "Second", "Footer", "Header one", "Header two"),
+            processor.extractParagraphs(docx));
+    }
+
+    @Test
+    void runsOfAParagraphFormOneSegment() throws IOException {
+        Path docx = docx(Map.of("word/document.xml", body(
+            "<w:p><w:r><w:t>Hello </w:t></w:r><w:r><w:rPr><w:b/></w:rPr><w:t>bold</w:t></w:r><w:r><w:t> world</w:t></w:r></w:p>")));
+
+        assertEquals(List.of("Hello bold world"), processor.extractParagraphs(docx));
+    }
+
+    @Test
+    void textBoxParagraphIsItsOwnSegmentAfterTheParagraphHoldingIt() throws IOException {
+        Path docx = docx(Map.of("word/document.xml", body(textBoxParagraph())));
+
+        assertEquals(List.of("Before after", "Inside the box"), processor.extractParagraphs(docx));
+    }
+
+    @Test
+    void rewriteRoundTripsThroughExtraction() throws IOException {
+        Path docx = docx(Map.of(
+            "word/document.xml", body(paragraph("First") + textBoxParagraph()),
+            "word/header1.xml", part("hdr", paragraph("Header")),
+            "word/footer1.xml", part("ftr", paragraph("Footer"))));
+        List<String> translations = List.of("Erste", "Vorher nachher", "Im Kasten", "Kopfzeile", "Fusszeile");
+        Path target = dir.resolve("translated.docx");
+
+        processor.rewrite(docx, target, translations);
+
+        assertEquals(translations, processor.extractParagraphs(target));
+    }
+
+    @Test
+    void translationGoesIntoTheFirstRunAndTheOthersAreEmptied() throws IOException {
+        Path docx = docx(Map.of("word/document.xml", body(
+            "<w:p><w:r><w:t>Hello </w:t></w:r><w:r><w:rPr><w:b/></w:rPr><w:t>world</w:t></w:r></w:p>")));
+        Path target = dir.resolve("translated.docx");
+
+        processor.rewrite(docx, target, List.of(" Hallo Welt"));
+
+        String xml = read(target, "word/document.xml");
+        assertTrue(xml.contains("<w:t xml:space=\"preserve\"> Hallo Welt</w:t>"), xml);
+        // The formatting of the emptied run is kept
+        assertTrue(xml.contains("<w:rPr><w:b></w:b></w:rPr><w:t></w:t>"), xml);
+    }
+
+    @Test
+    void otherEntriesAreCopiedUnchanged() throws IOException {
+        byte[] image = new byte[4096];
+        for (int i = 0; i < image.length; i++) {
+            image[i] = (byte) (i * 31);
+        }
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("[Content_Types].xml", "<Types/>".getBytes(StandardCharsets.UTF_8));
+        entries.put("word/document.xml", body(paragraph("Text")).getBytes(StandardCharsets.UTF_8));
+        entries.put("word/media/image1.png", image);
+        Path docx = dir.resolve("source.docx");
+        write(docx, entries);
+        Path target = dir.resolve("translated.docx");
+
+        processor.rewrite(docx, target, List.of("Texte"));
+
+        try (ZipFile zip = new ZipFile(target.toFile())) {
+            assertEquals(List.of("[Content_Types].xml", "word/document.xml", "word/media/image1.png"),
+                zip.stream().map(ZipEntry::getName).toList());
+            assertArrayEquals(image, zip.getInputStream(zip.getEntry("word/media/image1.png")).readAllBytes());
+            assertEquals("<Types/>", new String(zip.getInputStream(zip.getEntry("[Content_Types].xml")).readAllBytes(),
+                StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * A paragraph with text on both sides of a text box that holds a paragraph of its own
+     */
+    private static String textBoxParagraph() {
+        return "<w:p><w:r><w:t>Before </w:t></w:r>"
+            + "<w:r><w:pict><w:txbxContent>" + paragraph("Inside the box") + "</w:txbxContent></w:pict></w:r>"
+            + "<w:r><w:t>after</w:t></w:r></w:p>";
+    }
+
+    private static String paragraph(String text) {
+        return "<w:p><w:r><w:t>" + text + "</w:t></w:r></w:p>";
+    }
+
+    private static String body(String paragraphs) {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?><w:document " + W + "><w:body>" + paragraphs + "</w:body></w:document>";
+    }
+
+    private static String part(String root, String paragraphs) {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?><w:" + root + " " + W + ">" + paragraphs + "</w:" + root + ">";
+    }
+
+    private Path docx(Map<String, String> parts) throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        parts.forEach((name, xml) -> entries.put(name, xml.getBytes(StandardCharsets.UTF_8)));
+        Path docx = dir.resolve("source.docx");
+        write(docx, entries);
+        return docx;
+    }
+
+    private static void write(Path zip, Map<String, byte[]> entries) throws IOException {
+        try (OutputStream file = Files.newOutputStream(zip);
+             ZipOutputStream out = new ZipOutputStream(file)) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                out.putNextEntry(new ZipEntry(entry.getKey()));
+                out.write(entry.getValue());
+                out.closeEntry();
+            }
+        }
+    }
+
+    private static String read(Path zip, String name) throws IOException {
+        try (ZipFile file = new ZipFile(zip.toFile())) {
+            return new String(file.getInputStream(file.getEntry(name)).readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.filemanager.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TextChunkerTest {
+
+    @Test
+    void blankLineRunEndsAPieceAndStaysWithIt() throws IOException {
+        String text = "First paragraph.\n\n\n\nSecond paragraph.\n";
+
+        List<TextChunker.Piece> pieces = chunk(new StringReader(text), 100);
+
+        assertEquals(2, pieces.size());
+        assertEquals("First paragraph.", pieces.get(0).getText());
+        assertEquals("\n\n\n\n", pieces.get(0).getTrailing());
+        assertEquals("Second paragraph.", pieces.get(1).getText());
+        assertEquals(text, join(pieces));
+    }
+
+    @Test
+    void blankLineRunSplitAcrossReadsIsNotCut() throws IOException {
+        String text = "One.\n \n\t\n\n\nTwo.\n\n\nThree.";
+
+        // Reading three characters at a time puts the end of the buffer inside the blank lines
+        List<TextChunker.Piece> pieces = chunk(new TrickleReader(text, 3), 100);
+
+        assertEquals(List.of("One.", "Two.", "Three."), pieces.stream().map(TextChunker.Piece::getText).toList());
+        assertEquals(text, join(pieces));
+    }
+
+    @Test
+    void longParagraphIsCutAtALineBreakFirst() throws IOException {
+        String text = "A first line\nA second line that is longer";
+
+        List<TextChunker.Piece> pieces = chunk(new StringReader(text), 20);
+
+        assertEquals("A first line", pieces.get(0).getText());
+        assertEquals(text, join(pieces));
+    }
+
+    @Test
+    void surrogatePairsAreNeverSplit() throws IOException {
+        String text = "😀".repeat(20);
+
+        List<TextChunker.Piece> pieces = chunk(new StringReader(text), 5);
+
+        for (TextChunker.Piece piece : pieces) {
+            String part = piece.getText();
+            assertTrue(part.length() <= 5);
+            assertFalse(Character.isLowSurrogate(part.charAt(0)), "piece starts inside a pair");
+            assertFalse(Character.isHighSurrogate(part.charAt(part.length() - 1)), "piece ends inside a pair");
+        }
+        assertEquals(text, join(pieces));
+    }
+
+    @Test
+    void cjkTextIsCutAfterAFullWidthFullStop() throws IOException {
+        String text = "第一句。第二句。第三句。";
+
+        List<TextChunker.Piece> pieces = chunk(new StringReader(text), 9);
+
+        assertEquals(List.of("第一句。第二句。", "第三句。"), pieces.stream().map(TextChunker.Piece::getText).toList());
+    }
+
+    @Test
+    void textWithoutBoundariesIsCutAtTheLimit() throws IOException {
+        String text = "x".repeat(25);
+
+        List<TextChunker.Piece> pieces = chunk(new StringReader(text), 10);
+
+        assertEquals(List.of(10, 10, 5), pieces.stream().map(piece -> piece.getText().length()).toList());
+    }
+
+    private static List<TextChunker.Piece> chunk(Reader reader, int maxCharacters) throws IOException {
+        TextChunker chunker = new TextChunker(reader, maxCharacters);
+        List<TextChunker.Piece> pieces = new ArrayList<>();
+        TextChunker.Piece piece;
+        while ((piece = chunker.next()) != null) {
+            pieces.add(piece);
+        }
+        return pieces;
+    }
+
+    private static String join(List<TextChunker.Piece> pieces) {
+        StringBuilder text = new StringBuilder();
+        for (TextChunker.Piece piece : pieces) {
+            text.append(piece.getLeading()).append(piece.getText()).append(piece.getTrailing());
+        }
+        return text.toString();
+    }
+
+    /**
+     * Hands out at most a few characters per read, like a slow stream
+     */
+    private static class TrickleReader extends Reader {
+        private final StringReader reader;
+        private final int chunkSize;
+
+        TrickleReader(String text, int chunkSize) {
+            this.reader = new StringReader(text);
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            return reader.read(buffer, offset, Math.min(length, chunkSize));
+        }
+
+        @Override
+        public void close() {
+            reader.close();
+        }
+    }
+}
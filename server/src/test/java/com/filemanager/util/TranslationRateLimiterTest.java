@@ -0,0 +1,128 @@
+package com.filemanager.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TranslationRateLimiterTest {
+
+    private final FakeTicker ticker = new FakeTicker();
+
+    @Test
+    void fullBucketDoesNotWait() throws InterruptedException {
+        TranslationRateLimiter limiter = new TranslationRateLimiter(1000, 10, ticker);
+
+        limiter.acquire(1000);
+
+        assertEquals(0, ticker.slept);
+    }
+
+    @Test
+    void emptyCharacterBucketRefillsAtTheConfiguredRate() throws InterruptedException {
+        TranslationRateLimiter limiter = new TranslationRateLimiter(1000, 100, ticker);
+        limiter.acquire(1000);
+
+        limiter.acquire(500);
+
+        // Half a bucket refills in half a second
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), ticker.slept);
+    }
+
+    @Test
+    void requestBucketLimitsSmallRequests() throws InterruptedException {
+        TranslationRateLimiter limiter = new TranslationRateLimiter(1_000_000, 2, ticker);
+        limiter.acquire(1);
+        limiter.acquire(1);
+
+        limiter.acquire(1);
+
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), ticker.slept);
+    }
+
+    @Test
+    void requestLargerThanTheBucketOnlyWaitsForAFullBucket() throws InterruptedException {
+        TranslationRateLimiter limiter = new TranslationRateLimiter(100, 100, ticker);
+
+        limiter.acquire(10_000);
+
+        assertEquals(0, ticker.slept);
+    }
+
+    @Test
+    void elapsedTimeRefillsTheBucketWithoutWaiting() throws InterruptedException {
+        TranslationRateLimiter limiter = new TranslationRateLimiter(1000, 100, ticker);
+        limiter.acquire(1000);
+
+        ticker.now += TimeUnit.SECONDS.toNanos(1);
+        limiter.acquire(1000);
+
+        assertEquals(0, ticker.slept);
+    }
+
+    @Test
+    void throttlingHalvesTheRateAndSuccessRecoversIt() {
+        TranslationRateLimiter limiter = new TranslationRateLimiter(1000, 10, ticker);
+
+        limiter.onThrottled();
+        assertEquals(0.5, limiter.getRateFactor(), 1e-9);
+        limiter.onThrottled();
+        assertEquals(0.25, limiter.getRateFactor(), 1e-9);
+        limiter.onSuccess();
+        assertEquals(0.27, limiter.getRateFactor(), 1e-9);
+    }
+
+    @Test
+    void rateNeverDropsBelowTheFloor() {
+        TranslationRateLimiter limiter = new TranslationRateLimiter(1000, 10, ticker);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.onThrottled();
+        }
+
+        assertEquals(0.1, limiter.getRateFactor(), 1e-9);
+    }
+
+    @Test
+    void throttlingPausesCallers() throws InterruptedException {
+        TranslationRateLimiter limiter = new TranslationRateLimiter(1000, 10, ticker);
+        limiter.onThrottled();
+
+        limiter.acquire(1);
+
+        // The first backoff is one second
+        assertEquals(TimeUnit.SECONDS.toNanos(1), ticker.slept);
+    }
+
+    @Test
+    void repeatedThrottlingDoublesThePause() throws InterruptedException {
+        TranslationRateLimiter limiter = new TranslationRateLimiter(1000, 10, ticker);
+        limiter.onThrottled();
+        limiter.onThrottled();
+
+        limiter.acquire(1);
+
+        assertEquals(TimeUnit.SECONDS.toNanos(2), ticker.slept);
+    }
+
+    /**
+     * A clock that only moves when the limiter sleeps, or when a test moves it
+     */
+    private static class FakeTicker implements TranslationRateLimiter.Ticker {
+        // Not zero, the limiter must not treat the epoch of the clock as special
+        long now = TimeUnit.DAYS.toNanos(1);
+        long slept;
+
+        @Override
+        public long nanoTime() {
+            return now;
+        }
+
+        @Override
+        public void sleep(long nanos) {
+            now += nanos;
+            slept += nanos;
+        }
+    }
+}